@@ -0,0 +1,921 @@
+package creational.object_pool;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+// Thrown when the pool is at capacity and no object became free in time
+class PoolExhaustedException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    PoolExhaustedException(String message) {
+        super(message);
+    }
+}
+
+// Capacity shared by several pools, e.g. every per-key pool of a KeyedObjectPool.
+// A pool reserves from it on top of its own capacity, so the sum of all pools stays under one limit.
+class CapacityBudget {
+    private final int limit;
+    private final AtomicInteger used = new AtomicInteger();
+
+    // Told when budget frees up or a starved pool starts waiting, so the owner of the budget can
+    // serve waiters across pools - a release in one pool never wakes another pool's waiters by itself
+    private volatile Runnable listener = () -> { };
+
+    CapacityBudget(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
+        this.limit = limit;
+    }
+
+    boolean tryReserve() {
+        int current;
+        do {
+            current = used.get();
+            if (current >= limit) {
+                return false;
+            }
+        } while (!used.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    void release() {
+        used.decrementAndGet();
+        listener.run();
+    }
+
+    void setListener(Runnable listener) {
+        this.listener = listener;
+    }
+
+    // Budget is used up, but idle stock appeared or a waiter queued that another pool could serve
+    void signal() {
+        listener.run();
+    }
+
+    boolean isExhausted() {
+        return used.get() >= limit;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getUsed() {
+        return used.get();
+    }
+}
+
+// Bookkeeping wrapper around a pooled object.
+// The state field is the single source of truth for ownership, so every hand-over is one CAS
+// instead of the list scan ObjectPool does in release().
+class PooledEntry<T> {
+    static final int IDLE = 0;
+    static final int IN_USE = 1;
+    static final int RETURNING = 2;   // claimed by release(), being reset - nobody may borrow it yet
+    static final int DISCARDED = 3;   // dropped from the pool, left for the garbage collector
+
+    // Cleared once discarded, so a stale node left in the free-list does not keep the object alive.
+    // Only read by whoever won the state CAS, which orders it against the clearing write.
+    T object;
+    final AtomicInteger state = new AtomicInteger(IN_USE);
+
+    volatile long idleSince;          // System.nanoTime() when last checked in - drives idle eviction
+    volatile long borrowedAt;         // System.nanoTime() when checked out, 0 while not (yet) stamped - drives leak detection
+    volatile Throwable acquiredAt;    // stack of the borrower, only captured for sampled borrows
+    volatile boolean leakReported;
+
+    PooledEntry(T object) {
+        this.object = object;
+    }
+
+    boolean tryBorrow() {
+        return state.compareAndSet(IDLE, IN_USE);
+    }
+}
+
+// Thread-safe object pool with the same acquire()/release() contract as ObjectPool.
+//
+// Idle objects live in two places:
+//  - a small magazine per thread-hash stripe, so a thread that releases and re-acquires rarely touches
+//    state other threads are using
+//  - a lock-free (Treiber) stack shared by all threads, used when the local magazine is empty or full
+// Magazine slots are CAS'd, so other threads can steal from them before the pool gives up or creates.
+// The stripe count is fixed at construction, so many short-lived threads cannot grow the pool's footprint.
+// The capacity is a hard limit on objects ever alive at once - the pool never grows past it.
+// At capacity, acquire() fails fast while acquire(timeout) parks in a FIFO queue and released objects
+// are handed straight to the longest waiter, so a load spike queues up instead of creating more objects.
+// With minIdle set, background filler threads keep a stock of ready objects so callers almost never
+// pay factory.create() on their own thread; maxIdle caps how many objects may sit idle.
+// An optional maintenance thread evicts objects idle past a TTL and reports objects borrowed past a
+// leak threshold, with the borrower's stack trace when the borrow was sampled.
+class ConcurrentObjectPool<T extends Reusable> implements AutoCloseable {
+    private static final int DEFAULT_MAGAZINE_SIZE = 4;
+
+    private final ObjectFactory<T> factory;
+    private final int capacity;
+    private final int minIdle;
+    private final int maxIdle;
+    private final boolean validateOnBorrow;
+    private final boolean validateOnReturn;
+    private final long idleTimeoutNanos;     // 0 = never evict
+    private final long leakThresholdNanos;   // 0 = no leak detection
+    private final double leakSampleRate;
+    private final CapacityBudget budget;     // null = only this pool's own capacity applies
+
+    // Background threads that build objects in parallel - null when minIdle is 0
+    private final ExecutorService filler;
+    private final AtomicReference<CompletableFuture<Void>> fills =
+            new AtomicReference<>(CompletableFuture.completedFuture(null));
+    private volatile boolean closed;
+
+    // Eviction and leak detection - null when neither is configured
+    private final ScheduledExecutorService maintenance;
+    private final LongAdder leaks = new LongAdder();
+
+    // Shared free-list: push/pop are single CAS operations on the head, O(1) at both ends
+    private final AtomicReference<Node<T>> top = new AtomicReference<>();
+
+    // Every live object -> its entry, so release(T) finds the entry in O(1).
+    // Keyed by identity: pooled objects with value equality (or a mutable hashCode) must not collide.
+    private final ConcurrentHashMap<IdentityKey, PooledEntry<T>> registry = new ConcurrentHashMap<>();
+
+    // Fixed set of striped magazines, one per thread-hash bucket. The set never grows with the number
+    // of threads that ever touched the pool, so steal() scans a bounded array and nothing is left
+    // behind when a thread exits.
+    private final Magazine<T>[] magazines;
+    private final int stripeMask;
+
+    // Callers parked in acquire(timeout), oldest first
+    private final ConcurrentLinkedQueue<Waiter<T>> waiters = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger total = new AtomicInteger();   // objects alive (idle + borrowed)
+    private final LongAdder borrowed = new LongAdder();       // striped counter - no contention on hot path
+    private final PoolMetrics metrics = new PoolMetrics();
+    private final Consumer<T> releaser = this::release;       // shared by all leases - no per-lease lambda
+
+    public ConcurrentObjectPool(ObjectFactory<T> factory, int capacity) {
+        this(new Builder<>(factory, capacity));
+    }
+
+    public ConcurrentObjectPool(ObjectFactory<T> factory, int capacity, int magazineSize) {
+        this(new Builder<>(factory, capacity).setMagazineSize(magazineSize));
+    }
+
+    // Private constructor - validated configuration comes from the builder
+    private ConcurrentObjectPool(Builder<T> builder) {
+        if (builder.capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + builder.capacity);
+        }
+        if (builder.magazineSize < 0) {
+            throw new IllegalArgumentException("Magazine size must not be negative: " + builder.magazineSize);
+        }
+        if (builder.minIdle < 0 || builder.minIdle > builder.maxIdle || builder.maxIdle > builder.capacity) {
+            throw new IllegalArgumentException("Expected 0 <= minIdle <= maxIdle <= capacity, got "
+                    + builder.minIdle + " / " + builder.maxIdle + " / " + builder.capacity);
+        }
+        if (builder.fillerThreads <= 0) {
+            throw new IllegalArgumentException("Filler threads must be positive: " + builder.fillerThreads);
+        }
+        if (builder.leakSampleRate < 0 || builder.leakSampleRate > 1) {
+            throw new IllegalArgumentException("Leak sample rate must be within [0, 1]: " + builder.leakSampleRate);
+        }
+        this.factory = builder.factory;
+        this.capacity = builder.capacity;
+        this.minIdle = builder.minIdle;
+        this.maxIdle = builder.maxIdle;
+        this.validateOnBorrow = builder.validateOnBorrow;
+        this.validateOnReturn = builder.validateOnReturn;
+        this.idleTimeoutNanos = builder.idleTimeoutNanos;
+        this.leakThresholdNanos = builder.leakThresholdNanos;
+        this.leakSampleRate = builder.leakSampleRate;
+        this.budget = builder.budget;
+        this.magazines = newMagazines(builder.magazineSize);
+        this.stripeMask = magazines.length - 1;
+        this.filler = minIdle > 0
+                ? Executors.newFixedThreadPool(builder.fillerThreads, daemonThreads("pool-filler"))
+                : null;
+
+        if (idleTimeoutNanos > 0 || leakThresholdNanos > 0) {
+            this.maintenance = Executors.newSingleThreadScheduledExecutor(daemonThreads("pool-maintenance"));
+            maintenance.scheduleWithFixedDelay(this::runMaintenance,
+                    builder.maintenanceIntervalNanos, builder.maintenanceIntervalNanos, TimeUnit.NANOSECONDS);
+        } else {
+            this.maintenance = null;
+        }
+    }
+
+    // Get object from pool - local magazine, then shared stack, then other magazines, then factory.
+    // Fails fast with PoolExhaustedException when all objects are in use.
+    public T acquire() {
+        long start = System.nanoTime();
+        PooledEntry<T> entry = tryAcquireEntry();
+        if (entry == null) {
+            metrics.recordExhausted();
+            throw exhausted();
+        }
+        metrics.recordAcquire(System.nanoTime() - start);
+        return checkOut(entry);
+    }
+
+    // Get object from pool, waiting up to the timeout for another caller to release one.
+    // Waiting uses LockSupport.park and holds no monitor, so it is safe to call from virtual threads.
+    public T acquire(long timeout, TimeUnit unit) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        long start = System.nanoTime();
+        PooledEntry<T> entry = tryAcquireEntry();
+        if (entry == null) {
+            entry = awaitEntry(unit.toNanos(timeout));
+        }
+        metrics.recordAcquire(System.nanoTime() - start);
+        return checkOut(entry);
+    }
+
+    private T checkOut(PooledEntry<T> entry) {
+        T obj = entry.object;
+        obj.activate();
+        borrowed.increment();
+        metrics.recordBorrowed(borrowed.intValue());
+
+        if (leakThresholdNanos > 0) {
+            entry.borrowedAt = System.nanoTime();
+            entry.leakReported = false;
+            entry.acquiredAt = leakSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < leakSampleRate
+                    ? new Throwable("Acquired here")
+                    : null;
+        }
+
+        // Low-water mark crossed - top the stock up in the background, off the caller's thread
+        if (minIdle > 0 && getIdleCount() < minIdle) {
+            warmUp();
+        }
+        return obj;
+    }
+
+    // Lease variants - closing the lease releases the object, so try-with-resources cannot leak it
+    public Lease<T> lease() {
+        return new Lease<>(acquire(), releaser);
+    }
+
+    public Lease<T> lease(long timeout, TimeUnit unit) throws InterruptedException {
+        return new Lease<>(acquire(timeout, unit), releaser);
+    }
+
+    // Return object to pool - ignored if the object is not borrowed from this pool
+    public void release(T obj) {
+        PooledEntry<T> entry = registry.get(new IdentityKey(obj));
+        if (entry == null || !entry.state.compareAndSet(PooledEntry.IN_USE, PooledEntry.RETURNING)) {
+            return;  // foreign object or double release
+        }
+        borrowed.decrement();
+        entry.acquiredAt = null;
+        entry.borrowedAt = 0;   // the next borrower is IN_USE before checkOut() stamps it again
+        obj.reset();
+
+        if (validateOnReturn && !obj.validate()) {
+            discard(entry);
+            replaceForWaiters();
+            return;
+        }
+        checkIn(entry, true);
+    }
+
+    // Schedule background creates until the idle stock reaches minIdle.
+    // The returned future completes when every create scheduled so far has finished.
+    public CompletableFuture<Void> warmUp() {
+        // A reserved slot already counts as idle, so concurrent callers never schedule past minIdle
+        while (!closed && getIdleCount() < minIdle && reserveSlot()) {
+            CompletableFuture<Void> fill;
+            try {
+                fill = CompletableFuture.runAsync(this::fillOne, filler);
+            } catch (RejectedExecutionException e) {
+                releaseSlot();  // pool closed concurrently
+                break;
+            }
+            fills.updateAndGet(previous -> previous.isDone() ? fill : CompletableFuture.allOf(previous, fill));
+        }
+        return fills.get();
+    }
+
+    // One eviction + leak detection pass; the maintenance thread runs this periodically
+    public void runMaintenance() {
+        long now = System.nanoTime();
+        for (PooledEntry<T> entry : registry.values()) {
+            int state = entry.state.get();
+            if (state == PooledEntry.IDLE && idleTimeoutNanos > 0) {
+                evictIfExpired(entry, now);
+            } else if (state == PooledEntry.IN_USE && leakThresholdNanos > 0) {
+                reportIfLeaked(entry, now);
+            }
+        }
+        warmUp();  // eviction never goes below minIdle, but failed validations may have
+    }
+
+    // Drop one idle object to hand its share of a shared budget to another pool
+    public boolean evictIdle() {
+        if (!evictIdleKeepingBudget()) {
+            return false;
+        }
+        if (budget != null) {
+            budget.release();
+        }
+        return true;
+    }
+
+    // Drop one idle object but keep its unit of the shared budget: the caller now holds it and must
+    // pass it to acquireWithHeldBudget() or replaceForWaitersWithHeldBudget() of the pool it is for,
+    // so no other pool can take the unit in between
+    boolean evictIdleKeepingBudget() {
+        PooledEntry<T> entry = takeIdle();
+        if (entry == null) {
+            return false;
+        }
+        entry.state.set(PooledEntry.DISCARDED);
+        registry.remove(new IdentityKey(entry.object));
+        entry.object = null;
+        total.decrementAndGet();
+        return true;
+    }
+
+    // Build and borrow an object with a budget unit the caller already holds.
+    // Returns null, giving the unit back, when this pool is at its own capacity.
+    T acquireWithHeldBudget() {
+        long start = System.nanoTime();
+        if (!reserveOwnSlot()) {
+            budget.release();
+            return null;
+        }
+        metrics.recordMiss();
+        PooledEntry<T> entry = create();
+        metrics.recordAcquire(System.nanoTime() - start);
+        return checkOut(entry);
+    }
+
+    // Stop the background threads - borrowed objects can still be released
+    public void close() {
+        closed = true;
+        if (filler != null) {
+            filler.shutdown();
+        }
+        if (maintenance != null) {
+            maintenance.shutdown();
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getTotalCount() {
+        return total.get();
+    }
+
+    public int getBorrowedCount() {
+        return borrowed.intValue();
+    }
+
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    public int getMaxIdle() {
+        return maxIdle;
+    }
+
+    // Scrape-able view of the pool; taken without pausing acquire/release
+    public PoolMetrics.Snapshot getMetrics() {
+        return metrics.snapshot(getBorrowedCount(), getIdleCount(), getTotalCount());
+    }
+
+    public long getLeakCount() {
+        return leaks.sum();
+    }
+
+    public int getWaitingCount() {
+        return waiters.size();
+    }
+
+    // Approximate under concurrency - both counters move independently
+    public int getIdleCount() {
+        return Math.max(0, total.get() - borrowed.intValue());
+    }
+
+    // Get pool status
+    public void showStats() {
+        System.out.println("ConcurrentPool - Idle: " + getIdleCount() + ", In Use: " + getBorrowedCount()
+                + ", Total: " + getTotalCount() + "/" + capacity + ", Waiting: " + getWaitingCount());
+    }
+
+    private PooledEntry<T> tryAcquireEntry() {
+        PooledEntry<T> entry;
+        while ((entry = takeIdle()) != null) {
+            if (!validateOnBorrow || entry.object.validate()) {
+                return entry;
+            }
+            discard(entry);  // went bad while idle - try the next one
+        }
+        return tryCreate();
+    }
+
+    private PoolExhaustedException exhausted() {
+        return new PoolExhaustedException("Pool exhausted: all " + capacity + " objects are in use");
+    }
+
+    // Give a clean entry to the oldest waiter, or park it as idle.
+    // Background threads pass preferLocal = false so new stock lands where every caller looks first.
+    private void checkIn(PooledEntry<T> entry, boolean preferLocal) {
+        if (handOff(entry)) {
+            return;
+        }
+        if (getIdleCount() > maxIdle) {
+            discard(entry);  // idle stock is already at maxIdle - let this one go
+            return;
+        }
+        if (idleTimeoutNanos > 0) {
+            entry.idleSince = System.nanoTime();
+        }
+        entry.state.set(PooledEntry.IDLE);
+        if (!preferLocal || !localMagazine().offer(entry)) {
+            push(entry);
+        }
+
+        // Idle stock held while the shared budget is used up may be what another pool's waiters need
+        if (budget != null && budget.isExhausted()) {
+            budget.signal();
+        }
+
+        // A waiter may have queued after handOff() looked - make sure it is not left parked
+        // next to the object we just published
+        if (!waiters.isEmpty()) {
+            PooledEntry<T> idle = takeIdle();
+            if (idle != null && !handOff(idle)) {
+                idle.idleSince = System.nanoTime();
+                idle.state.set(PooledEntry.IDLE);
+                push(idle);
+            }
+        }
+    }
+
+    private boolean handOff(PooledEntry<T> entry) {
+        Waiter<T> waiter;
+        while ((waiter = waiters.poll()) != null) {
+            entry.state.set(PooledEntry.IN_USE);
+            if (waiter.offer(entry)) {
+                return true;
+            }
+            // waiter timed out or was interrupted - try the next one
+        }
+        return false;
+    }
+
+    private PooledEntry<T> awaitEntry(long timeoutNanos) throws InterruptedException {
+        Waiter<T> waiter = new Waiter<>();
+        waiters.add(waiter);
+
+        // Re-check after enqueueing: an object released before we were visible would otherwise be missed.
+        // The re-check may create, and factory.create() may throw - leave the queue before propagating.
+        PooledEntry<T> entry;
+        try {
+            entry = tryAcquireEntry();
+        } catch (RuntimeException | Error e) {
+            abandon(waiter);
+            throw e;
+        }
+        if (entry != null) {
+            if (waiter.cancel()) {
+                waiters.remove(waiter);
+                return entry;
+            }
+            checkIn(entry, true);  // a releaser handed us one at the same time - keep that one
+            return waiter.entry.get();
+        }
+        if (budget != null && budget.isExhausted()) {
+            budget.signal();   // starved by the shared budget - let its owner free some for us
+        }
+
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (true) {
+            PooledEntry<T> handed = waiter.entry.get();
+            if (handed != null) {
+                return handed;
+            }
+            if (Thread.interrupted()) {
+                abandon(waiter);
+                throw new InterruptedException();
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                abandon(waiter);
+                metrics.recordExhausted();
+                throw exhausted();
+            }
+            LockSupport.parkNanos(this, remaining);
+        }
+    }
+
+    // Leave the queue; if an object was handed over in the meantime, pass it on
+    private void abandon(Waiter<T> waiter) {
+        if (waiter.cancel()) {
+            waiters.remove(waiter);
+        } else {
+            checkIn(waiter.entry.get(), true);
+        }
+    }
+
+    private PooledEntry<T> takeIdle() {
+        PooledEntry<T> entry = localMagazine().poll();
+        if (entry != null) {
+            return entry;
+        }
+        entry = pop();
+        if (entry != null) {
+            return entry;
+        }
+        return steal();
+    }
+
+    // Create on the caller's thread - this is the latency the pool exists to avoid, so it counts as a miss
+    private PooledEntry<T> tryCreate() {
+        if (!reserveSlot()) {
+            return null;
+        }
+        metrics.recordMiss();
+        return create();
+    }
+
+    // Reserve a slot under the capacity first, so concurrent creators can never overshoot it
+    private boolean reserveSlot() {
+        if (!reserveOwnSlot()) {
+            return false;
+        }
+        if (budget != null && !budget.tryReserve()) {
+            total.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    private boolean reserveOwnSlot() {
+        int current;
+        do {
+            current = total.get();
+            if (current >= capacity) {
+                return false;
+            }
+        } while (!total.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private void releaseSlot() {
+        total.decrementAndGet();
+        if (budget != null) {
+            budget.release();
+        }
+    }
+
+    // Build an object for an already reserved slot; the new entry starts out claimed (IN_USE)
+    private PooledEntry<T> create() {
+        T obj;
+        long start = System.nanoTime();
+        try {
+            obj = factory.create();
+        } catch (RuntimeException | Error e) {
+            releaseSlot();
+            throw e;
+        }
+        metrics.recordCreate(System.nanoTime() - start);
+        PooledEntry<T> entry = new PooledEntry<>(obj);
+        registry.put(new IdentityKey(obj), entry);
+        return entry;
+    }
+
+    private void fillOne() {
+        checkIn(create(), false);
+    }
+
+    // Drop an entry the caller has claimed
+    private void discard(PooledEntry<T> entry) {
+        entry.state.set(PooledEntry.DISCARDED);
+        forget(entry);
+    }
+
+    private void forget(PooledEntry<T> entry) {
+        registry.remove(new IdentityKey(entry.object));
+        entry.object = null;
+        releaseSlot();
+    }
+
+    boolean hasWaiters() {
+        return !waiters.isEmpty();
+    }
+
+    // Capacity freed up - parked callers only wake on a hand-off, so build them one.
+    // Returns false when nobody is waiting or there is no capacity to build with.
+    boolean replaceForWaiters() {
+        if (waiters.isEmpty() || !reserveSlot()) {
+            return false;
+        }
+        if (filler != null && !closed) {
+            try {
+                filler.execute(this::fillOne);
+                return true;
+            } catch (RejectedExecutionException e) {
+                // closed concurrently - build it here instead
+            }
+        }
+        fillOne();
+        return true;
+    }
+
+    // Same, with a budget unit the caller already holds - the unit is given back if unused
+    boolean replaceForWaitersWithHeldBudget() {
+        if (waiters.isEmpty() || !reserveOwnSlot()) {
+            budget.release();
+            return false;
+        }
+        fillOne();
+        return true;
+    }
+
+    // The entry may sit in the free-list or a magazine; marking it DISCARDED is enough,
+    // whoever pops it later fails tryBorrow() and skips it
+    private void evictIfExpired(PooledEntry<T> entry, long now) {
+        if (now - entry.idleSince < idleTimeoutNanos || getIdleCount() <= minIdle) {
+            return;
+        }
+        if (entry.state.compareAndSet(PooledEntry.IDLE, PooledEntry.DISCARDED)) {
+            forget(entry);
+        }
+    }
+
+    // An IN_USE entry with no borrow time is being created or handed over, not held by a caller
+    private void reportIfLeaked(PooledEntry<T> entry, long now) {
+        long borrowedAt = entry.borrowedAt;
+        long heldNanos = now - borrowedAt;
+        if (borrowedAt == 0 || heldNanos < leakThresholdNanos || entry.leakReported) {
+            return;
+        }
+        entry.leakReported = true;
+        leaks.increment();
+
+        System.err.println("Possible pool leak: object held for " + TimeUnit.NANOSECONDS.toMillis(heldNanos)
+                + " ms without release");
+        Throwable acquiredAt = entry.acquiredAt;
+        if (acquiredAt != null) {
+            acquiredAt.printStackTrace();
+        }
+    }
+
+    static ThreadFactory daemonThreads(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);  // never keep the JVM alive just for pool housekeeping
+            return thread;
+        };
+    }
+
+    // Scan the other stripes, starting next to our own so threads don't all raid stripe 0
+    private PooledEntry<T> steal() {
+        int own = stripe();
+        for (int i = 1; i < magazines.length; i++) {
+            PooledEntry<T> entry = magazines[(own + i) & stripeMask].poll();
+            if (entry != null) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private void push(PooledEntry<T> entry) {
+        // A fresh node per push keeps the Treiber stack free of the ABA problem
+        Node<T> node = new Node<>(entry);
+        Node<T> head;
+        do {
+            head = top.get();
+            node.next = head;
+        } while (!top.compareAndSet(head, node));
+    }
+
+    private PooledEntry<T> pop() {
+        while (true) {
+            Node<T> head = top.get();
+            if (head == null) {
+                return null;
+            }
+            if (top.compareAndSet(head, head.next) && head.entry.tryBorrow()) {
+                return head.entry;
+            }
+        }
+    }
+
+    private Magazine<T> localMagazine() {
+        return magazines[stripe()];
+    }
+
+    // Thread id spread with a multiplicative hash, so consecutive ids land on different stripes
+    private int stripe() {
+        long id = Thread.currentThread().getId();
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & stripeMask;
+    }
+
+    // Twice the core count, rounded up to a power of two - enough that running threads rarely share
+    @SuppressWarnings("unchecked")
+    private static <T> Magazine<T>[] newMagazines(int magazineSize) {
+        int stripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1;
+        Magazine<T>[] magazines = (Magazine<T>[]) new Magazine<?>[stripes];
+        for (int i = 0; i < stripes; i++) {
+            magazines[i] = new Magazine<>(magazineSize);
+        }
+        return magazines;
+    }
+
+    // Fluent configuration - factory and capacity are required, everything else has a default
+    public static class Builder<T extends Reusable> {
+        private final ObjectFactory<T> factory;
+        private final int capacity;
+
+        private int magazineSize = DEFAULT_MAGAZINE_SIZE;
+        private int minIdle;
+        private int maxIdle;
+        private int fillerThreads = 1;
+        private boolean validateOnBorrow;
+        private boolean validateOnReturn;
+        private long idleTimeoutNanos;
+        private long leakThresholdNanos;
+        private double leakSampleRate;
+        private long maintenanceIntervalNanos = TimeUnit.SECONDS.toNanos(30);
+        private CapacityBudget budget;
+
+        public Builder(ObjectFactory<T> factory, int capacity) {
+            this.factory = factory;
+            this.capacity = capacity;
+            this.maxIdle = capacity;
+        }
+
+        // Idle objects cached per magazine stripe; 0 disables magazines
+        public Builder<T> setMagazineSize(int magazineSize) {
+            this.magazineSize = magazineSize;
+            return this;
+        }
+
+        // Low-water mark the background filler keeps the idle stock at
+        public Builder<T> setMinIdle(int minIdle) {
+            this.minIdle = minIdle;
+            return this;
+        }
+
+        // Released objects beyond this many idle ones are dropped instead of kept
+        public Builder<T> setMaxIdle(int maxIdle) {
+            this.maxIdle = maxIdle;
+            return this;
+        }
+
+        // Parallelism of the background filler
+        public Builder<T> setFillerThreads(int fillerThreads) {
+            this.fillerThreads = fillerThreads;
+            return this;
+        }
+
+        // Call Reusable.validate() before handing an idle object out
+        public Builder<T> setValidateOnBorrow(boolean validateOnBorrow) {
+            this.validateOnBorrow = validateOnBorrow;
+            return this;
+        }
+
+        // Call Reusable.validate() after reset() when an object comes back
+        public Builder<T> setValidateOnReturn(boolean validateOnReturn) {
+            this.validateOnReturn = validateOnReturn;
+            return this;
+        }
+
+        // Objects idle longer than this are evicted, down to minIdle
+        public Builder<T> setIdleTimeout(long timeout, TimeUnit unit) {
+            this.idleTimeoutNanos = unit.toNanos(timeout);
+            return this;
+        }
+
+        // Objects borrowed longer than this are reported as possible leaks
+        public Builder<T> setLeakThreshold(long threshold, TimeUnit unit) {
+            this.leakThresholdNanos = unit.toNanos(threshold);
+            return this;
+        }
+
+        // Fraction of borrows that record the borrower's stack trace (0 = never, 1 = always)
+        public Builder<T> setLeakSampleRate(double leakSampleRate) {
+            this.leakSampleRate = leakSampleRate;
+            return this;
+        }
+
+        // How often the maintenance thread runs eviction and leak detection
+        public Builder<T> setMaintenanceInterval(long interval, TimeUnit unit) {
+            this.maintenanceIntervalNanos = unit.toNanos(interval);
+            return this;
+        }
+
+        // Additional limit shared with other pools
+        public Builder<T> setSharedBudget(CapacityBudget budget) {
+            this.budget = budget;
+            return this;
+        }
+
+        // Build the pool and start pre-warming it up to minIdle
+        public ConcurrentObjectPool<T> build() {
+            ConcurrentObjectPool<T> pool = new ConcurrentObjectPool<>(this);
+            pool.warmUp();
+            return pool;
+        }
+    }
+
+    private static final class Waiter<T> {
+        private static final PooledEntry<Object> CANCELLED = new PooledEntry<>(null);
+
+        final Thread thread = Thread.currentThread();
+        final AtomicReference<PooledEntry<T>> entry = new AtomicReference<>();
+
+        // Exactly one of offer()/cancel() wins the empty slot
+        boolean offer(PooledEntry<T> handed) {
+            if (entry.compareAndSet(null, handed)) {
+                LockSupport.unpark(thread);
+                return true;
+            }
+            return false;
+        }
+
+        @SuppressWarnings("unchecked")
+        boolean cancel() {
+            return entry.compareAndSet(null, (PooledEntry<T>) (PooledEntry<?>) CANCELLED);
+        }
+    }
+
+    // Map key that compares the wrapped object by reference, like IdentityHashMap
+    private static final class IdentityKey {
+        final Object ref;
+
+        IdentityKey(Object ref) {
+            this.ref = ref;
+        }
+
+        public boolean equals(Object other) {
+            return other instanceof IdentityKey && ((IdentityKey) other).ref == ref;
+        }
+
+        public int hashCode() {
+            return System.identityHashCode(ref);
+        }
+    }
+
+    private static final class Node<T> {
+        final PooledEntry<T> entry;
+        Node<T> next;
+
+        Node(PooledEntry<T> entry) {
+            this.entry = entry;
+        }
+    }
+
+    // Striped cache of idle entries.
+    // Threads hashed to the same stripe share it, so both filling and emptying a slot are CAS'd.
+    private static final class Magazine<T> {
+        private final AtomicReferenceArray<PooledEntry<T>> slots;
+
+        Magazine(int size) {
+            this.slots = new AtomicReferenceArray<>(size);
+        }
+
+        boolean offer(PooledEntry<T> entry) {
+            for (int i = 0; i < slots.length(); i++) {
+                if (slots.get(i) == null && slots.compareAndSet(i, null, entry)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        PooledEntry<T> poll() {
+            for (int i = slots.length() - 1; i >= 0; i--) {
+                PooledEntry<T> entry = slots.get(i);
+                if (entry != null && slots.compareAndSet(i, entry, null) && entry.tryBorrow()) {
+                    return entry;
+                }
+            }
+            return null;
+        }
+    }
+}
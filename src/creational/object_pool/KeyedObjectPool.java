@@ -0,0 +1,178 @@
+package creational.object_pool;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+// One ConcurrentObjectPool per key (resource flavour), created on first use with the key's own factory.
+//
+// Every per-key pool has its own capacity and also reserves from one shared CapacityBudget, so the
+// total number of objects across all keys stays under a global limit. When a hot key runs into the
+// global limit, idle objects of other keys are evicted to free budget for it (rebalancing), instead of
+// letting cold keys sit on capacity they are not using.
+// Timed callers park in their key's FIFO queue; the budget signals the keyed pool whenever it frees
+// up or idle stock appears while it is used up, and the keyed pool then builds or rebalances an
+// object for a waiting key - no polling. That work runs on one shared background thread, so a
+// release stays O(1) and never waits for another key's factory.
+// A rebalance keeps the evicted object's budget unit and hands it straight to the hungry key, so
+// another key's caller cannot take it in between.
+class KeyedObjectPool<K, T extends Reusable> implements AutoCloseable {
+    private final Function<? super K, ? extends ObjectFactory<T>> factories;
+    private final int perKeyCapacity;
+    private final CapacityBudget budget;
+    private final ConcurrentHashMap<K, ConcurrentObjectPool<T>> pools = new ConcurrentHashMap<>();
+
+    // Builds objects for waiting keys off the releasing thread; signals coalesce into one pending pass
+    private final ExecutorService server =
+            Executors.newSingleThreadExecutor(ConcurrentObjectPool.daemonThreads("keyed-pool-server"));
+    private final AtomicBoolean servePending = new AtomicBoolean();
+
+    public KeyedObjectPool(Function<? super K, ? extends ObjectFactory<T>> factories,
+                           int perKeyCapacity, int globalCapacity) {
+        if (perKeyCapacity <= 0) {
+            throw new IllegalArgumentException("Per-key capacity must be positive: " + perKeyCapacity);
+        }
+        this.factories = factories;
+        this.perKeyCapacity = perKeyCapacity;
+        this.budget = new CapacityBudget(globalCapacity);
+        budget.setListener(this::scheduleServe);
+    }
+
+    // Get object for the key - fails fast with PoolExhaustedException when neither the key's pool
+    // nor a rebalance can supply one
+    public T acquire(K key) {
+        ConcurrentObjectPool<T> pool = poolFor(key);
+        try {
+            return pool.acquire();
+        } catch (PoolExhaustedException e) {
+            T obj = rebalanceFor(pool) ? pool.acquireWithHeldBudget() : null;
+            if (obj == null) {
+                throw e;
+            }
+            return obj;
+        }
+    }
+
+    // Get object for the key, waiting up to the timeout in the key's FIFO queue.
+    // Budget freed by other keys reaches the queue through serveWaiters(), not only releases of this key.
+    public T acquire(K key, long timeout, TimeUnit unit) throws InterruptedException {
+        ConcurrentObjectPool<T> pool = poolFor(key);
+        if (rebalanceFor(pool)) {
+            T obj = pool.acquireWithHeldBudget();
+            if (obj != null) {
+                return obj;
+            }
+        }
+        return pool.acquire(timeout, unit);
+    }
+
+    // Lease variants - closing the lease releases the object to the pool of its key
+    public Lease<T> lease(K key) {
+        return new Lease<>(acquire(key), obj -> release(key, obj));
+    }
+
+    public Lease<T> lease(K key, long timeout, TimeUnit unit) throws InterruptedException {
+        return new Lease<>(acquire(key, timeout, unit), obj -> release(key, obj));
+    }
+
+    // Return object to the pool of its key
+    public void release(K key, T obj) {
+        ConcurrentObjectPool<T> pool = pools.get(key);
+        if (pool != null) {
+            pool.release(obj);
+        }
+    }
+
+    public int getTotalCount() {
+        return budget.getUsed();
+    }
+
+    public int getGlobalCapacity() {
+        return budget.getLimit();
+    }
+
+    // Pool for one key, or null if the key was never used
+    public ConcurrentObjectPool<T> getPool(K key) {
+        return pools.get(key);
+    }
+
+    public void showStats() {
+        System.out.println("KeyedPool - Total: " + getTotalCount() + "/" + getGlobalCapacity()
+                + ", Keys: " + pools.size());
+        for (Map.Entry<K, ConcurrentObjectPool<T>> entry : pools.entrySet()) {
+            System.out.print("  " + entry.getKey() + " -> ");
+            entry.getValue().showStats();
+        }
+    }
+
+    public void close() {
+        server.shutdown();
+        for (ConcurrentObjectPool<T> pool : pools.values()) {
+            pool.close();
+        }
+    }
+
+    // Plain get() first - computeIfAbsent would lock the bin even when the pool already exists
+    private ConcurrentObjectPool<T> poolFor(K key) {
+        ConcurrentObjectPool<T> pool = pools.get(key);
+        if (pool != null) {
+            return pool;
+        }
+        return pools.computeIfAbsent(key, k ->
+                new ConcurrentObjectPool.Builder<T>(factories.apply(k), perKeyCapacity)
+                        .setSharedBudget(budget)
+                        .build());
+    }
+
+    // Budget listener - runs on the releasing thread, so it only schedules a pass
+    private void scheduleServe() {
+        if (servePending.compareAndSet(false, true)) {
+            try {
+                server.execute(this::serveWaiters);
+            } catch (RejectedExecutionException e) {
+                servePending.set(false);   // closed
+            }
+        }
+    }
+
+    // Hand freed budget, or another key's idle object, to keys with waiters until nothing more can
+    // be served. Signals raised meanwhile schedule one more pass.
+    private void serveWaiters() {
+        servePending.set(false);
+        boolean served;
+        do {
+            served = false;
+            for (ConcurrentObjectPool<T> pool : pools.values()) {
+                if (pool.hasWaiters() && pool.getTotalCount() < perKeyCapacity
+                        && (pool.replaceForWaiters() || rebalanceFor(pool) && pool.replaceForWaitersWithHeldBudget())) {
+                    served = true;
+                }
+            }
+        } while (served);
+    }
+
+    // Take one unit of global budget for the pool by evicting an idle object from the key that has
+    // the most idle stock; on true the caller holds the unit and must pass it to the pool.
+    // Only worth it when the pool is below its own capacity and the global limit is what stops it.
+    private boolean rebalanceFor(ConcurrentObjectPool<T> hungry) {
+        if (hungry.getIdleCount() > 0 || hungry.getTotalCount() >= perKeyCapacity
+                || budget.getUsed() < budget.getLimit()) {
+            return false;
+        }
+        ConcurrentObjectPool<T> donor = null;
+        int donorIdle = 0;
+        for (ConcurrentObjectPool<T> pool : pools.values()) {
+            int idle = pool.getIdleCount();
+            if (pool != hungry && idle > donorIdle) {
+                donor = pool;
+                donorIdle = idle;
+            }
+        }
+        return donor != null && donor.evictIdleKeepingBudget();
+    }
+}
@@ -0,0 +1,35 @@
+package creational.object_pool;
+
+import java.util.function.Consumer;
+
+// Borrowed object that goes back to its pool when the lease is closed.
+// Use it with try-with-resources so an exception path can never skip release():
+//
+//     try (Lease<ExpensiveObject> lease = pool.lease()) {
+//         lease.get().doWork();
+//     }
+class Lease<T extends Reusable> implements AutoCloseable {
+    private final T object;
+    private final Consumer<? super T> release;
+    private boolean closed;   // a lease has a single owner, like a stream - no synchronization
+
+    Lease(T object, Consumer<? super T> release) {
+        this.object = object;
+        this.release = release;
+    }
+
+    public T get() {
+        if (closed) {
+            throw new IllegalStateException("Lease already closed - object is back in the pool");
+        }
+        return object;
+    }
+
+    // Idempotent - closing twice releases once
+    public void close() {
+        if (!closed) {
+            closed = true;
+            release.accept(object);
+        }
+    }
+}
@@ -4,9 +4,20 @@ import java.util.*;
 
 // Reusable object interface
 interface Reusable {
+    // Called when the pool hands the object out - the counterpart of reset().
+    // Lets every Reusable track its own in-use state without the pool knowing its concrete type.
+    default void activate() {
+    }
+
     // When an object is returned to the pool, it may contain state from its previous use.
     // Without resetting, the next user would get a "dirty" object with leftover data.
     void reset();
+
+    // Health check for pools that validate on borrow or return - an invalid object is discarded
+    // instead of being handed out again (e.g. a connection whose socket was closed by the server)
+    default boolean validate() {
+        return true;
+    }
 }
 
 // Expensive object that will be pooled
@@ -25,6 +36,10 @@ class ExpensiveObject implements Reusable {
         System.out.println("Expensive object created");
     }
 
+    public void activate() {
+        this.inUse = true;
+    }
+
     public void reset() {
         this.inUse = false;
         System.out.println("Object reset for reuse");
@@ -71,13 +86,16 @@ class ObjectPool<T extends Reusable> {
             System.out.println("Reusing object from pool");
         }
 
-        if (obj instanceof ExpensiveObject) {
-            ((ExpensiveObject) obj).setInUse(true);
-        }
+        obj.activate();
         inUse.add(obj);
         return obj;
     }
 
+    // Get object wrapped in a lease - closing it (e.g. via try-with-resources) releases the object
+    public Lease<T> lease() {
+        return new Lease<>(acquire(), this::release);
+    }
+
     // Return object to pool
     public void release(T obj) {
         if (inUse.remove(obj)) {
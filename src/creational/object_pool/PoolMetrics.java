@@ -0,0 +1,234 @@
+package creational.object_pool;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency histogram with HDR-style log-linear buckets.
+// Each power of two is split into 16 linear sub-buckets, so every recorded value lands in a bucket
+// within ~6% of its true value, and the whole range of a long fits in under a thousand counters.
+// record() only increments pre-allocated counters - no allocation, no locks.
+class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(indexOf(value));
+        sum.add(value);
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    // Copy the counters - recording continues while the copy is taken
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(copy, count, sum.sum(), max.get());
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    // Largest value that falls into the bucket
+    static long upperBoundOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = index % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return ((SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS)) + width - 1;
+    }
+
+    // Immutable copy of a histogram at one point in time
+    static class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public double getMean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        // Value at the given percentile (0-100), accurate to the bucket resolution
+        public long getPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBoundOf(i), max);
+                }
+            }
+            return max;
+        }
+
+        public String toString() {
+            return "count=" + count
+                    + ", mean=" + micros((long) getMean())
+                    + ", p50=" + micros(getPercentile(50))
+                    + ", p99=" + micros(getPercentile(99))
+                    + ", max=" + micros(max);
+        }
+
+        private static String micros(long nanos) {
+            return TimeUnit.NANOSECONDS.toMicros(nanos) + "us";
+        }
+    }
+}
+
+// Counters a pool updates on its hot path.
+// Everything is a striped adder or a pre-allocated histogram, so recording never allocates,
+// and snapshot() can be scraped at any time without pausing the pool.
+class PoolMetrics {
+    private final LatencyHistogram acquireWait = new LatencyHistogram();
+    private final LatencyHistogram createLatency = new LatencyHistogram();
+    private final LongAdder acquires = new LongAdder();
+    private final LongAdder misses = new LongAdder();       // acquires that called the factory themselves
+    private final LongAdder exhausted = new LongAdder();    // acquires that failed or timed out
+    private final AtomicInteger borrowedHighWater = new AtomicInteger();
+
+    void recordAcquire(long waitNanos) {
+        acquireWait.record(waitNanos);
+        acquires.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    void recordExhausted() {
+        exhausted.increment();
+    }
+
+    void recordCreate(long nanos) {
+        createLatency.record(nanos);
+    }
+
+    void recordBorrowed(int borrowedNow) {
+        if (borrowedNow > borrowedHighWater.get()) {
+            borrowedHighWater.accumulateAndGet(borrowedNow, Math::max);
+        }
+    }
+
+    Snapshot snapshot(int borrowed, int idle, int total) {
+        long missCount = misses.sum();
+        long hitCount = Math.max(0, acquires.sum() - missCount);
+        return new Snapshot(acquireWait.snapshot(), createLatency.snapshot(), hitCount, missCount,
+                exhausted.sum(), borrowed, idle, total, borrowedHighWater.get());
+    }
+
+    // Point-in-time view of a pool - each field is read atomically, the set as a whole is not
+    static class Snapshot {
+        private final LatencyHistogram.Snapshot acquireWait;
+        private final LatencyHistogram.Snapshot createLatency;
+        private final long hits;
+        private final long misses;
+        private final long exhausted;
+        private final int borrowed;
+        private final int idle;
+        private final int total;
+        private final int borrowedHighWater;
+
+        private Snapshot(LatencyHistogram.Snapshot acquireWait, LatencyHistogram.Snapshot createLatency,
+                         long hits, long misses, long exhausted, int borrowed, int idle, int total,
+                         int borrowedHighWater) {
+            this.acquireWait = acquireWait;
+            this.createLatency = createLatency;
+            this.hits = hits;
+            this.misses = misses;
+            this.exhausted = exhausted;
+            this.borrowed = borrowed;
+            this.idle = idle;
+            this.total = total;
+            this.borrowedHighWater = borrowedHighWater;
+        }
+
+        public LatencyHistogram.Snapshot getAcquireWait() {
+            return acquireWait;
+        }
+
+        public LatencyHistogram.Snapshot getCreateLatency() {
+            return createLatency;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getExhausted() {
+            return exhausted;
+        }
+
+        // Share of acquires served without calling the factory
+        public double getHitRatio() {
+            long acquires = hits + misses;
+            return acquires == 0 ? 0 : (double) hits / acquires;
+        }
+
+        public int getBorrowed() {
+            return borrowed;
+        }
+
+        public int getIdle() {
+            return idle;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public int getBorrowedHighWater() {
+            return borrowedHighWater;
+        }
+
+        public String toString() {
+            return String.format("hits=%d, misses=%d, hitRatio=%.2f, exhausted=%d, borrowed=%d, idle=%d, "
+                            + "total=%d, highWater=%d%n  acquireWait: %s%n  createLatency: %s",
+                    hits, misses, getHitRatio(), exhausted, borrowed, idle, total, borrowedHighWater,
+                    acquireWait, createLatency);
+        }
+    }
+}
@@ -1,5 +1,12 @@
 package creational.object_pool;
 
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
 public class TestObjectPool {
     public static void main(String[] args) {
         System.out.println("=== Testing Object Pool Pattern ===\n");
@@ -109,6 +116,436 @@ public class TestObjectPool {
         ExpensiveObject newObj = emptyPool.acquire();
         System.out.println("✓ Pool successfully delegated object creation to factory");
 
+        // Test 9: Concurrent pool under contention
+        System.out.println("\nTest 9: Concurrent pool shared by many threads");
+        ConcurrentObjectPool<Connection> concurrentPool = new ConcurrentObjectPool<>(Connection::new, 4);
+        Set<Connection> held = ConcurrentHashMap.newKeySet();
+        AtomicInteger conflicts = new AtomicInteger();
+        AtomicInteger exhausted = new AtomicInteger();
+
+        Thread[] workers = new Thread[8];
+        for (int t = 0; t < workers.length; t++) {
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    Connection connection;
+                    try {
+                        connection = concurrentPool.acquire();
+                    } catch (IllegalStateException e) {
+                        exhausted.incrementAndGet();
+                        continue;
+                    }
+                    if (!held.add(connection)) {
+                        conflicts.incrementAndGet();  // same object handed to two threads at once
+                    }
+                    held.remove(connection);
+                    concurrentPool.release(connection);
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        concurrentPool.showStats();
+        System.out.println("Objects created: " + Connection.created.get() + " (capacity " + concurrentPool.getCapacity() + ")");
+        System.out.println("Exhausted acquires (fail-fast at capacity): " + exhausted.get());
+        if (conflicts.get() == 0 && Connection.created.get() <= concurrentPool.getCapacity()
+                && concurrentPool.getBorrowedCount() == 0) {
+            System.out.println("✓ No object shared between threads and capacity never exceeded");
+        } else {
+            System.out.println("✗ Concurrent pool handed out " + conflicts.get() + " shared objects");
+        }
+
+        // Test 10: Release is O(1) and ignores foreign or double releases
+        System.out.println("\nTest 10: Foreign and double release are ignored");
+        Connection borrowedConnection = concurrentPool.acquire();
+        concurrentPool.release(borrowedConnection);
+        concurrentPool.release(borrowedConnection);
+        concurrentPool.release(new Connection());
+        if (concurrentPool.getBorrowedCount() == 0 && concurrentPool.getTotalCount() <= concurrentPool.getCapacity()) {
+            System.out.println("✓ Pool state unchanged by invalid releases");
+        } else {
+            System.out.println("✗ Invalid release corrupted pool state");
+        }
+        concurrentPool.showStats();
+
+        // Test 11: Bounded pool makes callers wait instead of creating more objects
+        System.out.println("\nTest 11: Timed acquire queues callers at capacity");
+        ConcurrentObjectPool<Connection> boundedPool = new ConcurrentObjectPool<>(Connection::new, 2);
+        int createdBefore = Connection.created.get();
+        AtomicInteger served = new AtomicInteger();
+        Thread[] callers = new Thread[6];
+        for (int t = 0; t < callers.length; t++) {
+            callers[t] = new Thread(() -> {
+                try {
+                    Connection connection = boundedPool.acquire(2, TimeUnit.SECONDS);
+                    Thread.sleep(20);  // hold it so the others have to queue
+                    served.incrementAndGet();
+                    boundedPool.release(connection);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (PoolExhaustedException e) {
+                    System.out.println("✗ Caller timed out: " + e.getMessage());
+                }
+            });
+            callers[t].start();
+        }
+        for (Thread caller : callers) {
+            try {
+                caller.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        int createdForBounded = Connection.created.get() - createdBefore;
+        System.out.println("Callers served: " + served.get() + ", objects created: " + createdForBounded);
+        if (served.get() == callers.length && createdForBounded <= boundedPool.getCapacity()) {
+            System.out.println("✓ Load spike queued up instead of creating more objects");
+        } else {
+            System.out.println("✗ Bounded pool created more objects than its capacity");
+        }
+
+        // Test 12: Exhausted signal after the timeout
+        System.out.println("\nTest 12: Timed acquire reports exhaustion after timeout");
+        Connection first = boundedPool.acquire();
+        Connection second = boundedPool.acquire();
+        long waitStart = System.nanoTime();
+        try {
+            boundedPool.acquire(50, TimeUnit.MILLISECONDS);
+            System.out.println("✗ Should have thrown PoolExhaustedException");
+        } catch (PoolExhaustedException e) {
+            long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - waitStart);
+            System.out.println("✓ Exhausted after ~" + waitedMs + " ms: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        boundedPool.release(first);
+        boundedPool.release(second);
+        boundedPool.showStats();
+
+        // Test 13: Pre-warming and background refill keep construction off the caller's thread
+        System.out.println("\nTest 13: Pre-warmed pool with background refill");
+        long warmStart = System.nanoTime();
+        ConcurrentObjectPool<ExpensiveObject> warmPool = new ConcurrentObjectPool.Builder<>(factory, 8)
+                .setMinIdle(3)
+                .setMaxIdle(4)
+                .setFillerThreads(3)
+                .build();
+        warmPool.warmUp().join();
+        long warmMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - warmStart);
+        System.out.println("Pre-warmed " + warmPool.getIdleCount() + " objects in " + warmMs
+                + " ms (built in parallel, each costs 50 ms)");
+        warmPool.showStats();
+
+        long acquireStart = System.nanoTime();
+        ExpensiveObject warm1 = warmPool.acquire();
+        ExpensiveObject warm2 = warmPool.acquire();
+        long acquireMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - acquireStart);
+        if (acquireMs < 50) {
+            System.out.println("✓ Two acquires took " + acquireMs + " ms - no construction on caller thread");
+        } else {
+            System.out.println("✗ Caller paid construction latency: " + acquireMs + " ms");
+        }
+
+        warmPool.warmUp().join();  // wait for the refill the acquires triggered
+        System.out.println("After background refill:");
+        warmPool.showStats();
+
+        // Releasing both would leave 5 idle objects; maxIdle keeps only 4
+        warmPool.release(warm1);
+        warmPool.release(warm2);
+        if (warmPool.getIdleCount() == warmPool.getMaxIdle()) {
+            System.out.println("✓ Idle stock capped at maxIdle = " + warmPool.getMaxIdle());
+        } else {
+            System.out.println("✗ Idle stock " + warmPool.getIdleCount() + " exceeds maxIdle");
+        }
+        warmPool.showStats();
+        warmPool.close();
+
+        // Test 14: Validation, idle eviction and leak detection
+        System.out.println("\nTest 14: Validation, idle eviction and leak detection");
+        ConcurrentObjectPool<Connection> maintainedPool = new ConcurrentObjectPool.Builder<Connection>(Connection::new, 4)
+                .setValidateOnBorrow(true)
+                .setValidateOnReturn(true)
+                .setIdleTimeout(50, TimeUnit.MILLISECONDS)
+                .setLeakThreshold(50, TimeUnit.MILLISECONDS)
+                .setLeakSampleRate(1.0)
+                .setMaintenanceInterval(20, TimeUnit.MILLISECONDS)
+                .build();
+
+        Connection broken = maintainedPool.acquire();
+        Connection healthy = maintainedPool.acquire();
+        Connection leaked = maintainedPool.acquire();  // never released until the end
+
+        broken.broken = true;
+        maintainedPool.release(broken);
+        if (maintainedPool.getTotalCount() == 2) {
+            System.out.println("✓ Invalid object discarded on return");
+        } else {
+            System.out.println("✗ Invalid object kept in pool");
+        }
+
+        maintainedPool.release(healthy);
+        System.out.println("Before idle timeout:");
+        maintainedPool.showStats();
+
+        try {
+            Thread.sleep(200);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.out.println("After idle timeout:");
+        maintainedPool.showStats();
+        if (maintainedPool.getIdleCount() == 0) {
+            System.out.println("✓ Idle object evicted - pool shrank back");
+        } else {
+            System.out.println("✗ Idle object not evicted");
+        }
+        if (maintainedPool.getLeakCount() == 1) {
+            System.out.println("✓ Object held past the deadline reported once, with its acquiring stack trace");
+        } else {
+            System.out.println("✗ Leak reports: " + maintainedPool.getLeakCount());
+        }
+        maintainedPool.release(leaked);
+        maintainedPool.close();
+
+        // Test 15: Metrics snapshot - hit ratio, high-water mark and latency histograms
+        System.out.println("\nTest 15: Pool metrics snapshot");
+        ConcurrentObjectPool<ExpensiveObject> meteredPool = new ConcurrentObjectPool<>(factory, 3);
+        ExpensiveObject m1 = meteredPool.acquire();
+        ExpensiveObject m2 = meteredPool.acquire();
+        ExpensiveObject m3 = meteredPool.acquire();
+        meteredPool.release(m1);
+        meteredPool.release(m2);
+        meteredPool.release(m3);
+        for (int i = 0; i < 9; i++) {
+            meteredPool.release(meteredPool.acquire());
+        }
+        ExpensiveObject[] drained = {meteredPool.acquire(), meteredPool.acquire(), meteredPool.acquire()};
+        try {
+            meteredPool.acquire(10, TimeUnit.MILLISECONDS);  // pool is drained - this one times out
+        } catch (PoolExhaustedException e) {
+            System.out.println("Fourth acquire timed out as expected");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        PoolMetrics.Snapshot snapshot = meteredPool.getMetrics();
+        System.out.println(snapshot);
+        if (snapshot.getMisses() == 3 && snapshot.getHits() == 12 && snapshot.getExhausted() == 1
+                && snapshot.getBorrowedHighWater() == 3
+                && snapshot.getCreateLatency().getPercentile(50) >= TimeUnit.MILLISECONDS.toNanos(50)) {
+            System.out.println("✓ Hit ratio " + String.format("%.2f", snapshot.getHitRatio())
+                    + ", high-water mark and create latency recorded");
+        } else {
+            System.out.println("✗ Unexpected metrics snapshot");
+        }
+        for (ExpensiveObject obj : drained) {
+            meteredPool.release(obj);
+        }
+        meteredPool.close();
+
+        // Test 16: Keyed pool with per-key and global limits
+        System.out.println("\nTest 16: Keyed pool shares one global limit across flavours");
+        KeyedObjectPool<String, Connection> keyedPool =
+                new KeyedObjectPool<>(flavour -> Connection::new, 3, 4);
+
+        Connection[] primaries = {keyedPool.acquire("primary"), keyedPool.acquire("primary"), keyedPool.acquire("primary")};
+        for (Connection primary : primaries) {
+            keyedPool.release("primary", primary);
+        }
+        System.out.println("Primary key warmed up and idle:");
+        keyedPool.showStats();
+
+        // Only one unit of global budget is left - the rest must come from primary's idle stock
+        Connection[] replicas = {keyedPool.acquire("replica"), keyedPool.acquire("replica"), keyedPool.acquire("replica")};
+        System.out.println("After three replica acquires:");
+        keyedPool.showStats();
+        if (keyedPool.getTotalCount() <= keyedPool.getGlobalCapacity()
+                && keyedPool.getPool("replica").getBorrowedCount() == 3) {
+            System.out.println("✓ Idle primary objects were rebalanced to the hot replica key");
+        } else {
+            System.out.println("✗ Global limit exceeded or rebalance failed");
+        }
+
+        try {
+            keyedPool.acquire("replica");
+            System.out.println("✗ Per-key capacity should have been enforced");
+        } catch (PoolExhaustedException e) {
+            System.out.println("✓ Per-key capacity enforced: " + e.getMessage());
+        }
+
+        // Concurrent callers over several keys never push the total past the global limit
+        for (Connection replica : replicas) {
+            keyedPool.release("replica", replica);
+        }
+        String[] flavours = {"primary", "replica", "analytics"};
+        AtomicInteger keyedServed = new AtomicInteger();
+        Thread[] keyedCallers = new Thread[6];
+        for (int t = 0; t < keyedCallers.length; t++) {
+            String flavour = flavours[t % flavours.length];
+            keyedCallers[t] = new Thread(() -> {
+                for (int i = 0; i < 200; i++) {
+                    try {
+                        Connection connection = keyedPool.acquire(flavour, 1, TimeUnit.SECONDS);
+                        if (keyedPool.getTotalCount() <= keyedPool.getGlobalCapacity()) {
+                            keyedServed.incrementAndGet();
+                        }
+                        keyedPool.release(flavour, connection);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    } catch (PoolExhaustedException e) {
+                        System.out.println("✗ Keyed caller timed out: " + e.getMessage());
+                    }
+                }
+            });
+            keyedCallers[t].start();
+        }
+        for (Thread caller : keyedCallers) {
+            try {
+                caller.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        keyedPool.showStats();
+        if (keyedServed.get() == keyedCallers.length * 200) {
+            System.out.println("✓ All keyed acquires served within the global limit");
+        } else {
+            System.out.println("✗ Keyed acquires served: " + keyedServed.get());
+        }
+        keyedPool.close();
+
+        // Test 17: Leases return objects even when the work throws
+        System.out.println("\nTest 17: Try-with-resources lease survives exception paths");
+        try (Lease<ExpensiveObject> lease = pool.lease()) {
+            lease.get().doWork();  // activate() marked it in use - no instanceof in the pool
+            throw new IllegalStateException("simulated failure while using the object");
+        } catch (IllegalStateException e) {
+            System.out.println("Work failed: " + e.getMessage());
+        }
+        pool.showStats();
+
+        ConcurrentObjectPool<Connection> leasePool = new ConcurrentObjectPool<>(Connection::new, 2);
+        Connection leased;
+        try (Lease<Connection> lease = leasePool.lease()) {
+            leased = lease.get();
+            System.out.println("Leased connection active: " + leased.active);
+        }
+        if (!leased.active && leasePool.getBorrowedCount() == 0) {
+            System.out.println("✓ Lease released the object and the Reusable tracked its own in-use state");
+        } else {
+            System.out.println("✗ Lease did not return the object");
+        }
+
+        // Test 18: Objects that are equal by value are still tracked one by one
+        System.out.println("\nTest 18: Registry tracks objects by identity, not equals()");
+        ConcurrentObjectPool<EqualConnection> equalPool = new ConcurrentObjectPool<>(EqualConnection::new, 2);
+        EqualConnection firstEqual = equalPool.acquire();
+        EqualConnection secondEqual = equalPool.acquire();
+        equalPool.release(firstEqual);
+        equalPool.release(secondEqual);
+        equalPool.release(new EqualConnection());
+        if (firstEqual.equals(secondEqual) && equalPool.getBorrowedCount() == 0 && equalPool.getTotalCount() == 2) {
+            System.out.println("✓ Both value-equal objects returned, the foreign equal one ignored");
+        } else {
+            System.out.println("✗ Borrowed: " + equalPool.getBorrowedCount() + ", total: " + equalPool.getTotalCount());
+        }
+
+        // Test 19: A release under one key wakes a caller waiting on another key
+        System.out.println("\nTest 19: Keyed waiters are woken by other keys' releases, not polling");
+        KeyedObjectPool<String, Connection> wakePool = new KeyedObjectPool<>(flavour -> Connection::new, 2, 2);
+        Connection heldPrimary = wakePool.acquire("primary");
+        Connection otherPrimary = wakePool.acquire("primary");
+        try {
+            wakePool.acquire("replica", 100, TimeUnit.MILLISECONDS);
+            System.out.println("✗ Replica should have timed out with the global budget in use");
+        } catch (PoolExhaustedException e) {
+            long timeouts = wakePool.getPool("replica").getMetrics().getExhausted();
+            System.out.println((timeouts == 1 ? "✓" : "✗") + " One timed-out acquire recorded "
+                    + timeouts + " exhaustion(s)");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        AtomicLong wokenAfterMillis = new AtomicLong(-1);
+        Thread replicaCaller = new Thread(() -> {
+            long parkedAt = System.nanoTime();
+            try {
+                Connection replica = wakePool.acquire("replica", 2, TimeUnit.SECONDS);
+                wokenAfterMillis.set(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - parkedAt));
+                wakePool.release("replica", replica);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (PoolExhaustedException e) {
+                // reported below
+            }
+        });
+        replicaCaller.start();
+        try {
+            Thread.sleep(100);   // let the replica caller park
+            wakePool.release("primary", heldPrimary);
+            replicaCaller.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        wakePool.release("primary", otherPrimary);
+        System.out.println("Replica caller served after " + wokenAfterMillis.get() + " ms");
+        if (wokenAfterMillis.get() >= 0 && wokenAfterMillis.get() < 1000
+                && wakePool.getTotalCount() <= wakePool.getGlobalCapacity()) {
+            System.out.println("✓ Primary's idle object was rebalanced straight to the waiting replica");
+        } else {
+            System.out.println("✗ Replica caller was not woken by the primary release");
+        }
+        wakePool.close();
+
+        // A release must not build another key's object on the releasing thread
+        KeyedObjectPool<String, Connection> slowBuildPool = new KeyedObjectPool<>(flavour ->
+                "replica".equals(flavour) ? () -> {
+                    try {
+                        Thread.sleep(300);   // slow factory for the other key
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return new Connection();
+                } : Connection::new, 1, 1);
+        Connection onlyPrimary = slowBuildPool.acquire("primary");
+        AtomicBoolean slowReplicaServed = new AtomicBoolean();
+        Thread slowReplicaCaller = new Thread(() -> {
+            try {
+                slowBuildPool.release("replica", slowBuildPool.acquire("replica", 2, TimeUnit.SECONDS));
+                slowReplicaServed.set(true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (PoolExhaustedException e) {
+                // reported below
+            }
+        });
+        slowReplicaCaller.start();
+        long releaseMillis = -1;
+        try {
+            Thread.sleep(100);
+            long releaseStart = System.nanoTime();
+            slowBuildPool.release("primary", onlyPrimary);
+            releaseMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - releaseStart);
+            slowReplicaCaller.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (releaseMillis >= 0 && releaseMillis < 150 && slowReplicaServed.get()) {
+            System.out.println("✓ Release returned in " + releaseMillis
+                    + " ms; the replica was built in the background and served");
+        } else {
+            System.out.println("✗ Release took " + releaseMillis + " ms, replica served: " + slowReplicaServed.get());
+        }
+        slowBuildPool.close();
+
         System.out.println("\n=== Test Summary ===");
         System.out.println("Object Pool Pattern verified:");
         System.out.println("- Factory.create() solves generic instantiation problem");
@@ -116,6 +553,13 @@ public class TestObjectPool {
         System.out.println("- Objects are properly reset before reuse");
         System.out.println("- Different factories enable different object creation strategies");
         System.out.println("- Pool manages object lifecycle efficiently");
+        System.out.println("- Concurrent pool is thread-safe, lock-free and bounded by its capacity");
+        System.out.println("- Timed acquire applies back-pressure with a fair waiter queue");
+        System.out.println("- Background filler pre-warms and refills the pool between minIdle and maxIdle");
+        System.out.println("- Maintenance evicts idle objects, validation drops bad ones, leaks are reported");
+        System.out.println("- Metrics snapshot exposes hit ratio, high-water mark and latency histograms");
+        System.out.println("- Keyed pool enforces per-key and global limits and rebalances idle objects");
+        System.out.println("- Leases return objects via try-with-resources, activate() replaces type checks");
 
         System.out.println("\n=== Why ObjectFactory<T>.create() is Critical ===");
         System.out.println("1. Java generics cannot be instantiated directly (no 'new T()')");
@@ -124,4 +568,42 @@ public class TestObjectPool {
         System.out.println("4. Factory can handle complex initialization, parameters, etc.");
         System.out.println("5. Different factories = different object creation strategies");
     }
-}
\ No newline at end of file
+
+    // Cheap Reusable used for the contention tests - ExpensiveObject would print on every reset
+    private static class Connection implements Reusable {
+        static final AtomicInteger created = new AtomicInteger();
+
+        volatile boolean broken;
+        volatile boolean active;
+
+        Connection() {
+            created.incrementAndGet();
+        }
+
+        public void activate() {
+            active = true;
+        }
+
+        public void reset() {
+            active = false;
+        }
+
+        public boolean validate() {
+            return !broken;
+        }
+    }
+
+    // Value object whose instances are all equal - the pool must still tell them apart
+    private static class EqualConnection implements Reusable {
+        public void reset() {
+        }
+
+        public boolean equals(Object other) {
+            return other instanceof EqualConnection;
+        }
+
+        public int hashCode() {
+            return 1;
+        }
+    }
+}
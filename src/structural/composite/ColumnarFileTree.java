@@ -0,0 +1,331 @@
+package structural.composite;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+// Compact storage backend for very large trees.
+//
+// Instead of one File/Directory object per node plus an ArrayList per directory, the tree is a set
+// of parallel primitive columns indexed by node id: parent, first child, last child, next sibling,
+// size, and the node's name as an offset/length into one shared char arena. A node costs 32 bytes
+// plus two per name character, with no object headers or references for the GC to trace, and
+// whole-tree scans read the columns sequentially.
+// view(id) exposes any node through the FileSystemItem interface as a lightweight handle.
+class ColumnarFileTree {
+    static final int NONE = -1;
+    private static final long DIRECTORY = -1;   // size column marker for directories
+
+    private int[] parent;
+    private int[] firstChild;
+    private int[] lastChild;      // so children keep insertion order, like Directory
+    private int[] nextSibling;
+    private long[] size;          // KB for files, DIRECTORY for directories
+    private int[] nameStart;
+    private int[] nameLength;
+    private char[] names;
+    private int namesUsed;
+    private int count;
+
+    public ColumnarFileTree(String rootName) {
+        this(rootName, 16);
+    }
+
+    public ColumnarFileTree(String rootName, int expectedNodes) {
+        int capacity = Math.max(1, expectedNodes);
+        parent = new int[capacity];
+        firstChild = new int[capacity];
+        lastChild = new int[capacity];
+        nextSibling = new int[capacity];
+        size = new long[capacity];
+        nameStart = new int[capacity];
+        nameLength = new int[capacity];
+        names = new char[capacity * 8];
+        append(NONE, rootName, DIRECTORY);
+    }
+
+    // Columnar copy of an object tree, sized up front from its node count (plus the root)
+    public static ColumnarFileTree from(Directory root) {
+        ColumnarFileTree tree = new ColumnarFileTree(root.getName(), (int) Math.min(Integer.MAX_VALUE - 8, root.getNodeCount() + 1));
+        tree.copyTree(root);
+        tree.trimToSize();
+        return tree;
+    }
+
+    public int root() {
+        return 0;
+    }
+
+    public int addDirectory(int parentId, String name) {
+        return append(checkDirectory(parentId), name, DIRECTORY);
+    }
+
+    public int addFile(int parentId, String name, long sizeKb) {
+        if (sizeKb < 0) {
+            throw new IllegalArgumentException("Negative size for " + name);
+        }
+        return append(checkDirectory(parentId), name, sizeKb);
+    }
+
+    public int nodeCount() {
+        return count;
+    }
+
+    public boolean isDirectory(int id) {
+        return size[id] == DIRECTORY;
+    }
+
+    public String getName(int id) {
+        return new String(names, nameStart[id], nameLength[id]);
+    }
+
+    public long getSize(int id) {
+        return isDirectory(id) ? 0 : size[id];
+    }
+
+    public int getParent(int id) {
+        return parent[id];
+    }
+
+    public int getFirstChild(int id) {
+        return firstChild[id];
+    }
+
+    public int getNextSibling(int id) {
+        return nextSibling[id];
+    }
+
+    // Child with this name, or NONE - compares against the arena without allocating
+    public int findChild(int dirId, String name) {
+        for (int c = firstChild[dirId]; c != NONE; c = nextSibling[c]) {
+            if (nameEquals(c, name)) {
+                return c;
+            }
+        }
+        return NONE;
+    }
+
+    // Sum of all file sizes: one sequential pass over the size column
+    public long totalSize() {
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            if (size[i] != DIRECTORY) {
+                total += size[i];
+            }
+        }
+        return total;
+    }
+
+    public long fileCount() {
+        long files = 0;
+        for (int i = 0; i < count; i++) {
+            if (size[i] != DIRECTORY) {
+                files++;
+            }
+        }
+        return files;
+    }
+
+    // Sum of file sizes below one node, walked with an explicit stack instead of recursion
+    public long subtreeSize(int id) {
+        if (!isDirectory(id)) {
+            return size[id];
+        }
+        long total = 0;
+        int[] stack = new int[16];
+        int top = 0;
+        stack[top++] = id;
+        while (top > 0) {
+            for (int c = firstChild[stack[--top]]; c != NONE; c = nextSibling[c]) {
+                if (size[c] == DIRECTORY) {
+                    if (top == stack.length) {
+                        stack = Arrays.copyOf(stack, top * 2);
+                    }
+                    stack[top++] = c;
+                } else {
+                    total += size[c];
+                }
+            }
+        }
+        return total;
+    }
+
+    // Bytes held by the columns, including spare capacity
+    public long estimatedBytes() {
+        return 6L * 4 * parent.length + 8L * size.length + 2L * names.length;
+    }
+
+    // FileSystemItem view of a node; handles are created on demand and hold only (tree, id)
+    public FileSystemItem view(int id) {
+        if (id < 0 || id >= count) {
+            throw new IndexOutOfBoundsException("No node " + id);
+        }
+        return new Handle(this, id);
+    }
+
+    private boolean nameEquals(int id, String name) {
+        int length = nameLength[id];
+        if (length != name.length()) {
+            return false;
+        }
+        int start = nameStart[id];
+        for (int i = 0; i < length; i++) {
+            if (names[start + i] != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int checkDirectory(int id) {
+        if (id < 0 || id >= count || !isDirectory(id)) {
+            throw new IllegalArgumentException("Node " + id + " is not a directory");
+        }
+        return id;
+    }
+
+    private int append(int parentId, String name, long sizeKb) {
+        if (count == parent.length) {
+            grow();
+        }
+        if (namesUsed + name.length() > names.length) {
+            names = Arrays.copyOf(names, Math.max(names.length * 2, namesUsed + name.length()));
+        }
+        name.getChars(0, name.length(), names, namesUsed);
+
+        int id = count++;
+        parent[id] = parentId;
+        firstChild[id] = NONE;
+        lastChild[id] = NONE;
+        nextSibling[id] = NONE;
+        size[id] = sizeKb;
+        nameStart[id] = namesUsed;
+        nameLength[id] = name.length();
+        namesUsed += name.length();
+
+        if (parentId != NONE) {
+            if (lastChild[parentId] == NONE) {
+                firstChild[parentId] = id;
+            } else {
+                nextSibling[lastChild[parentId]] = id;
+            }
+            lastChild[parentId] = id;
+        }
+        return id;
+    }
+
+    // Drop spare capacity once the tree is fully built
+    public void trimToSize() {
+        resize(count);
+        names = Arrays.copyOf(names, namesUsed);
+    }
+
+    private void grow() {
+        resize(parent.length * 2);
+    }
+
+    private void resize(int capacity) {
+        parent = Arrays.copyOf(parent, capacity);
+        firstChild = Arrays.copyOf(firstChild, capacity);
+        lastChild = Arrays.copyOf(lastChild, capacity);
+        nextSibling = Arrays.copyOf(nextSibling, capacity);
+        size = Arrays.copyOf(size, capacity);
+        nameStart = Arrays.copyOf(nameStart, capacity);
+        nameLength = Arrays.copyOf(nameLength, capacity);
+    }
+
+    // Copy every directory's children under its columnar id, with an explicit stack instead of
+    // recursion so a very deep tree cannot overflow the thread stack
+    private void copyTree(Directory source) {
+        Deque<Directory> sources = new ArrayDeque<>();
+        int[] targets = new int[16];
+        int top = 0;
+        sources.push(source);
+        targets[top++] = root();
+        while (top > 0) {
+            Directory dir = sources.pop();
+            int target = targets[--top];
+            for (FileSystemItem child : dir.getChildren()) {
+                if (child instanceof File) {
+                    addFile(target, child.getName(), ((File) child).getSize());
+                } else if (child instanceof Directory) {
+                    if (top == targets.length) {
+                        targets = Arrays.copyOf(targets, top * 2);
+                    }
+                    targets[top++] = addDirectory(target, child.getName());
+                    sources.push((Directory) child);
+                }
+            }
+        }
+    }
+
+    // Read-only FileSystemItem over one node
+    static final class Handle implements FileSystemItem {
+        private final ColumnarFileTree tree;
+        private final int id;
+
+        Handle(ColumnarFileTree tree, int id) {
+            this.tree = tree;
+            this.id = id;
+        }
+
+        public String getName() {
+            return tree.getName(id);
+        }
+
+        public void display() {
+            if (tree.isDirectory(id)) {
+                System.out.println("Directory: " + getName());
+                for (int c = tree.firstChild[id]; c != NONE; c = tree.nextSibling[c]) {
+                    new Handle(tree, c).display();
+                }
+            } else {
+                System.out.println("File: " + getName() + " (Size: " + tree.size[id] + " KB)");
+            }
+        }
+
+        public void add(FileSystemItem item) {
+            throw new UnsupportedOperationException("Columnar tree views are read-only");
+        }
+
+        public void remove(FileSystemItem item) {
+            throw new UnsupportedOperationException("Columnar tree views are read-only");
+        }
+
+        public boolean isDirectory() {
+            return tree.isDirectory(id);
+        }
+
+        public long getSize() {
+            return tree.subtreeSize(id);
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        // Parent handle from the parent column, or null for the root
+        public Handle getParent() {
+            int p = tree.parent[id];
+            return p == NONE ? null : new Handle(tree, p);
+        }
+
+        public List<FileSystemItem> getChildren() {
+            List<FileSystemItem> children = new ArrayList<>();
+            for (int c = tree.firstChild[id]; c != NONE; c = tree.nextSibling[c]) {
+                children.add(new Handle(tree, c));
+            }
+            return children;
+        }
+
+        public boolean equals(Object other) {
+            return other instanceof Handle && ((Handle) other).tree == tree && ((Handle) other).id == id;
+        }
+
+        public int hashCode() {
+            return System.identityHashCode(tree) * 31 + id;
+        }
+    }
+}
@@ -15,12 +15,18 @@ interface FileSystemItem {
     default void remove(FileSystemItem item) {
         throw new UnsupportedOperationException("Cannot remove from a file");
     }
+
+    // Item that contains this one, or null for a root - the Directory it was added to in an object tree
+    default FileSystemItem getParent() {
+        return null;
+    }
 }
 
 // Leaf component - represents files
 class File implements FileSystemItem {
     private String name;
     private int size;
+    private Directory parent;
 
     public File(String name, int size) {
         this.name = name;
@@ -38,16 +44,45 @@ class File implements FileSystemItem {
     public int getSize() {
         return size;
     }
+
+    // Resize in place; ancestors' totals are adjusted by the difference
+    public void setSize(int size) {
+        long delta = (long) size - this.size;
+        this.size = size;
+        if (parent != null && delta != 0) {
+            parent.applyDelta(delta, 0, 0);
+        }
+    }
+
+    public Directory getParent() {
+        return parent;
+    }
+
+    void setParent(Directory parent) {
+        this.parent = parent;
+    }
 }
 
 // Composite component - represents directories
+// Keeps running aggregates of its subtree (total size, file and node counts, depth) that add/remove update
+// and propagate to all ancestors through parent links, so size queries on any node are O(1).
+// Children are also indexed by name, so resolving a path costs one hash lookup per segment.
 class Directory implements FileSystemItem {
     private String name;
     private List<FileSystemItem> children;
+    private Map<String, FileSystemItem> byName;   // first child with each name
+    private int shadowed;                         // children the index does not list - same name as an earlier one
+    private Directory parent;
+
+    private long totalSize;   // KB, all files below this directory
+    private long fileCount;
+    private long nodeCount;   // files and directories below this directory
+    private int depth;        // levels below this directory: 0 when empty, 1 when it holds only files
 
     public Directory(String name) {
         this.name = name;
         this.children = new ArrayList<>();
+        this.byName = new HashMap<>();
     }
 
     public String getName() {
@@ -55,11 +90,82 @@ class Directory implements FileSystemItem {
     }
 
     public void add(FileSystemItem item) {
+        for (Directory d = this; d != null; d = d.parent) {
+            if (d == item) {
+                throw new IllegalArgumentException("Cannot add " + name + "'s ancestor " + item.getName() + " to it");
+            }
+        }
+        FileSystemItem previous = item.getParent();
+        if (previous instanceof Directory) {
+            previous.remove(item);   // an item lives in one directory at a time
+        }
         children.add(item);
+        if (byName.putIfAbsent(item.getName(), item) != null) {
+            shadowed++;
+        }
+        setParent(item, this);
+        applyDelta(sizeOf(item), filesOf(item), nodesOf(item));
+        raiseDepth(depthOf(item));
     }
 
     public void remove(FileSystemItem item) {
-        children.remove(item);
+        // Items that don't track a Directory parent (none, or a columnar handle's) are looked up in the list instead
+        FileSystemItem owner = item.getParent();
+        if ((owner instanceof Directory && owner != this) || !children.remove(item)) {
+            return;   // not a child of this directory - nothing to update
+        }
+        if (byName.remove(item.getName(), item)) {
+            for (FileSystemItem child : children) {   // a same-named sibling takes over the name
+                if (child.getName().equals(item.getName())) {
+                    byName.put(child.getName(), child);
+                    shadowed--;
+                    break;
+                }
+            }
+        } else {
+            shadowed--;
+        }
+        setParent(item, null);
+        applyDelta(-sizeOf(item), -filesOf(item), -nodesOf(item));
+        recomputeDepth();
+    }
+
+    // Child with this name, or null - O(1)
+    public FileSystemItem getChild(String childName) {
+        return byName.get(childName);
+    }
+
+    // Item at a '/'-separated path relative to this directory, or null - O(depth)
+    public FileSystemItem resolve(String path) {
+        FileSystemItem current = this;
+        int start = 0;
+        while (start <= path.length()) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = path.length();
+            }
+            if (end > start) {   // skip empty segments ("a//b", leading or trailing '/')
+                if (!(current instanceof Directory)) {
+                    return null;
+                }
+                current = ((Directory) current).byName.get(path.substring(start, end));
+                if (current == null) {
+                    return null;
+                }
+            }
+            start = end + 1;
+        }
+        return current;
+    }
+
+    // Whether some children share a name - getChild() then returns only the first of them
+    boolean hasDuplicateNames() {
+        return shadowed > 0;
+    }
+
+    // Names of the children, for index-backed queries
+    Set<String> childNames() {
+        return Collections.unmodifiableSet(byName.keySet());
     }
 
     public void display() {
@@ -69,7 +175,91 @@ class Directory implements FileSystemItem {
         }
     }
 
+    // Read-only - changes must go through add/remove to keep the aggregates right
     public List<FileSystemItem> getChildren() {
-        return children;
+        return Collections.unmodifiableList(children);
+    }
+
+    public Directory getParent() {
+        return parent;
+    }
+
+    public long getTotalSize() {
+        return totalSize;
     }
-}
\ No newline at end of file
+
+    public long getFileCount() {
+        return fileCount;
+    }
+
+    public long getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    // Apply a size/file-count/node-count change to this directory and every ancestor
+    void applyDelta(long sizeDelta, long fileDelta, long nodeDelta) {
+        for (Directory d = this; d != null; d = d.parent) {
+            d.totalSize += sizeDelta;
+            d.fileCount += fileDelta;
+            d.nodeCount += nodeDelta;
+        }
+    }
+
+    // A child of the given depth was added: grow depths upward until an ancestor is already deep enough
+    private void raiseDepth(int childDepth) {
+        int required = childDepth + 1;
+        for (Directory d = this; d != null && d.depth < required; d = d.parent) {
+            d.depth = required;
+            required++;
+        }
+    }
+
+    // A child was removed: recompute from children, upward until a depth stops changing
+    private void recomputeDepth() {
+        for (Directory d = this; d != null; d = d.parent) {
+            int recomputed = 0;
+            for (FileSystemItem child : d.children) {
+                recomputed = Math.max(recomputed, depthOf(child) + 1);
+            }
+            if (recomputed == d.depth) {
+                return;
+            }
+            d.depth = recomputed;
+        }
+    }
+
+    private static void setParent(FileSystemItem item, Directory parent) {
+        if (item instanceof File) {
+            ((File) item).setParent(parent);
+        } else if (item instanceof Directory) {
+            ((Directory) item).parent = parent;
+        }
+    }
+
+    private static long sizeOf(FileSystemItem item) {
+        if (item instanceof File) {
+            return ((File) item).getSize();
+        }
+        return item instanceof Directory ? ((Directory) item).totalSize : 0;
+    }
+
+    private static long filesOf(FileSystemItem item) {
+        if (item instanceof File) {
+            return 1;
+        }
+        return item instanceof Directory ? ((Directory) item).fileCount : 0;
+    }
+
+    // The item itself plus everything below it
+    private static long nodesOf(FileSystemItem item) {
+        return item instanceof Directory ? 1 + ((Directory) item).nodeCount : 1;
+    }
+
+    private static int depthOf(FileSystemItem item) {
+        return item instanceof Directory ? ((Directory) item).depth : 0;
+    }
+}
@@ -0,0 +1,157 @@
+package structural.composite;
+
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.FileVisitor;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.Set;
+
+// Builds a composite tree from a real directory with Files.walkFileTree.
+//
+// Sizes come from the BasicFileAttributes the walk already read for each entry, so there is no
+// extra stat call per file. Memory stays bounded by the tree being built: the walker only keeps
+// the chain of directories currently open. Each directory is attached to its parent when it is
+// finished, so adding a file updates one directory's aggregates instead of every ancestor's, and
+// a completed subtree propagates its totals upward once.
+// Only directories and regular files are imported; symlinks are followed when setFollowLinks(true),
+// otherwise skipped along with special files, matching what FileSystemWatcher keeps in sync.
+class FileSystemImporter {
+
+    // Called every 'interval' files and once more when the walk finishes
+    interface ProgressListener {
+        void onProgress(long files, long directories, long bytes, boolean done);
+    }
+
+    private ProgressListener listener = (files, directories, bytes, done) -> { };
+    private int interval = 10_000;
+    private boolean followLinks;
+    private int maxDepth = Integer.MAX_VALUE;
+
+    // Counters of the last import
+    private long files;
+    private long directories;
+    private long bytes;
+    private long failures;
+
+    public FileSystemImporter setProgressListener(ProgressListener listener, int interval) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Progress interval must be positive: " + interval);
+        }
+        this.listener = listener;
+        this.interval = interval;
+        return this;
+    }
+
+    public FileSystemImporter setFollowLinks(boolean followLinks) {
+        this.followLinks = followLinks;
+        return this;
+    }
+
+    // Levels below the root to import; 1 imports only the root's own entries
+    public FileSystemImporter setMaxDepth(int maxDepth) {
+        if (maxDepth < 1) {
+            throw new IllegalArgumentException("Max depth must be at least 1: " + maxDepth);
+        }
+        this.maxDepth = maxDepth;
+        return this;
+    }
+
+    // Import the tree rooted at 'root'; unreadable entries below it are counted and skipped,
+    // but an unreadable root fails the import with the IOException that stopped it
+    public Directory importTree(Path root) throws IOException {
+        if (!Files.isDirectory(root)) {
+            throw new IOException("Not a directory: " + root);
+        }
+        files = 0;
+        directories = 0;
+        bytes = 0;
+        failures = 0;
+
+        Deque<Directory> open = new ArrayDeque<>();
+        Directory[] result = new Directory[1];
+        Set<FileVisitOption> options = followLinks ? EnumSet.of(FileVisitOption.FOLLOW_LINKS) : EnumSet.noneOf(FileVisitOption.class);
+        Files.walkFileTree(root, options, maxDepth, new FileVisitor<Path>() {
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                open.push(new Directory(nameOf(dir)));
+                directories++;
+                return FileVisitResult.CONTINUE;
+            }
+
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isDirectory()) {   // directory at maxDepth - keep it, empty
+                    open.peek().add(new Directory(nameOf(file)));
+                    directories++;
+                    return FileVisitResult.CONTINUE;
+                }
+                if (!attrs.isRegularFile()) {
+                    // Unfollowed or broken symlinks and special files - FileSystemWatcher skips them too
+                    return FileVisitResult.CONTINUE;
+                }
+                open.peek().add(new File(nameOf(file), toKilobytes(attrs.size())));
+                bytes += attrs.size();
+                if (++files % interval == 0) {
+                    listener.onProgress(files, directories, bytes, false);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException {
+                if (open.isEmpty()) {
+                    throw e;   // the root itself - there is no tree to return
+                }
+                failures++;
+                return FileVisitResult.CONTINUE;
+            }
+
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                if (e != null) {
+                    if (open.size() == 1) {
+                        throw e;   // the root could not be listed - an empty tree would hide that
+                    }
+                    failures++;
+                }
+                Directory finished = open.pop();
+                if (open.isEmpty()) {
+                    result[0] = finished;
+                } else {
+                    open.peek().add(finished);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        listener.onProgress(files, directories, bytes, true);
+        return result[0];
+    }
+
+    public long getFilesImported() {
+        return files;
+    }
+
+    public long getDirectoriesImported() {
+        return directories;
+    }
+
+    public long getBytesImported() {
+        return bytes;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    // File sizes in the composite tree are whole KB; round up so non-empty files never show as 0
+    static int toKilobytes(long bytes) {
+        return (int) Math.min(Integer.MAX_VALUE, (bytes + 1023) / 1024);
+    }
+
+    private static String nameOf(Path path) {
+        Path name = path.getFileName();
+        return name == null ? path.toString() : name.toString();
+    }
+}
@@ -0,0 +1,175 @@
+package structural.composite;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+// Path queries backed by each directory's name index.
+//
+// Paths are '/'-separated and relative to the directory they are evaluated against. Literal
+// segments are resolved with one hash lookup; only wildcard segments scan a directory's children,
+// so a glob like "src/main/java/*.java" touches three index entries and one directory listing
+// instead of the whole tree.
+class FileSystemPaths {
+
+    // Path of item relative to the root of its tree, so root.resolve(pathOf(item)) == item
+    public static String pathOf(FileSystemItem item) {
+        if (item.getParent() == null) {
+            return "";
+        }
+        StringBuilder path = new StringBuilder(item.getName());
+        for (FileSystemItem d = item.getParent(); d.getParent() != null; d = d.getParent()) {
+            path.insert(0, '/').insert(0, d.getName());
+        }
+        return path.toString();
+    }
+
+    // Paths of entries whose path starts with prefix, e.g. "src/main/Ap" or "src/main/" - sorted.
+    // Only the directory holding the last segment is listed.
+    public static List<String> list(Directory root, String prefix) {
+        int slash = prefix.lastIndexOf('/');
+        String dirPath = slash < 0 ? "" : prefix.substring(0, slash);
+        String namePrefix = prefix.substring(slash + 1);
+        List<String> paths = new ArrayList<>();
+        FileSystemItem dir = root.resolve(dirPath);
+        if (dir instanceof Directory) {
+            String base = dirPath.isEmpty() ? "" : dirPath + "/";
+            for (FileSystemItem child : ((Directory) dir).getChildren()) {
+                if (child.getName().startsWith(namePrefix)) {
+                    paths.add(base + child.getName());
+                }
+            }
+        }
+        paths.sort(null);
+        return paths;
+    }
+
+    // Paths matching a glob evaluated segment by segment: '**' spans zero or more directories,
+    // '*' and '?' match within one name - sorted, one entry per matching item (same-named siblings
+    // each get one). Walks with an explicit stack, so a very deep tree cannot overflow the thread stack.
+    public static List<String> glob(Directory root, String pattern) {
+        List<String> segments = new ArrayList<>();
+        for (String segment : pattern.split("/")) {
+            // "**/**" means the same as "**" but would walk every subtree once per '**'
+            if (!segment.isEmpty() && !(segment.equals("**") && !segments.isEmpty()
+                    && segments.get(segments.size() - 1).equals("**"))) {
+                segments.add(segment);
+            }
+        }
+        if (segments.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // Wildcard segments compiled once per query, not once per directory visited
+        int count = segments.size();
+        Pattern[] regexes = new Pattern[count];
+        for (int i = 0; i < count; i++) {
+            String segment = segments.get(i);
+            if (!segment.equals("**") && (segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0)) {
+                regexes[i] = FileSystemQueries.globToPattern(segment);
+            }
+        }
+
+        // Several '**' can reach one directory at the same segment along different splits - each
+        // (directory, segment) state is expanded once, and each matching item is reported once
+        List<Set<Directory>> expanded = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            expanded.add(Collections.newSetFromMap(new IdentityHashMap<>()));
+        }
+        Map<FileSystemItem, String> matches = new IdentityHashMap<>();
+        Deque<Step> pending = new ArrayDeque<>();
+        expanded.get(0).add(root);
+        pending.push(new Step(root, "", 0));
+
+        while (!pending.isEmpty()) {
+            Step step = pending.pop();
+            String segment = segments.get(step.index);
+            boolean last = step.index == count - 1;
+
+            if (segment.equals("**")) {
+                if (last) {
+                    collectAll(step.dir, step.path, matches);
+                    continue;
+                }
+                push(pending, expanded, step.dir, step.path, step.index + 1);   // zero directories
+                for (FileSystemItem child : step.dir.getChildren()) {
+                    if (child instanceof Directory) {
+                        push(pending, expanded, (Directory) child, join(step.path, child), step.index);
+                    }
+                }
+            } else {
+                for (FileSystemItem child : candidates(step.dir, segment, regexes[step.index])) {
+                    if (last) {
+                        matches.put(child, join(step.path, child));
+                    } else if (child instanceof Directory) {
+                        push(pending, expanded, (Directory) child, join(step.path, child), step.index + 1);
+                    }
+                }
+            }
+        }
+        List<String> paths = new ArrayList<>(matches.values());
+        paths.sort(null);
+        return paths;
+    }
+
+    // Children matching one segment. A literal is one index lookup - unless the directory holds
+    // same-named children, which the index only lists once.
+    private static List<FileSystemItem> candidates(Directory dir, String segment, Pattern regex) {
+        List<FileSystemItem> found = new ArrayList<>();
+        if (regex == null && !dir.hasDuplicateNames()) {
+            FileSystemItem child = dir.getChild(segment);
+            if (child != null) {
+                found.add(child);
+            }
+            return found;
+        }
+        for (FileSystemItem child : dir.getChildren()) {
+            if (regex == null ? child.getName().equals(segment) : regex.matcher(child.getName()).matches()) {
+                found.add(child);
+            }
+        }
+        return found;
+    }
+
+    private static void push(Deque<Step> pending, List<Set<Directory>> expanded, Directory dir, String path, int index) {
+        if (expanded.get(index).add(dir)) {
+            pending.push(new Step(dir, path, index));
+        }
+    }
+
+    private static void collectAll(Directory start, String startPath, Map<FileSystemItem, String> out) {
+        Deque<Step> pending = new ArrayDeque<>();
+        pending.push(new Step(start, startPath, 0));
+        while (!pending.isEmpty()) {
+            Step step = pending.pop();
+            for (FileSystemItem child : step.dir.getChildren()) {
+                String path = join(step.path, child);
+                if (out.put(child, path) == null && child instanceof Directory) {   // subtree not listed yet
+                    pending.push(new Step((Directory) child, path, 0));
+                }
+            }
+        }
+    }
+
+    private static String join(String dirPath, FileSystemItem child) {
+        return dirPath.isEmpty() ? child.getName() : dirPath + "/" + child.getName();
+    }
+
+    // A directory still to be matched against segments[index]
+    private static final class Step {
+        final Directory dir;
+        final String path;
+        final int index;
+
+        Step(Directory dir, String path, int index) {
+            this.dir = dir;
+            this.path = path;
+            this.index = index;
+        }
+    }
+}
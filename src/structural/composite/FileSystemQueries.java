@@ -0,0 +1,265 @@
+package structural.composite;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+// Aggregate queries over a composite tree, run as fork-join tasks.
+//
+// Work is split at directory boundaries: each task folds the files of its directory into a
+// private accumulator and forks one subtask per large subdirectory, except one that it descends
+// into itself - so a long chain of directories is a loop, not a chain of nested joins. Subtrees
+// below the sequential cutoff - read from Directory.getNodeCount(), so empty directories count
+// too - are walked inline with an explicit stack, since forking a task costs more than visiting a
+// few hundred nodes. Accumulators are merged as subtasks are joined, so no state is shared between
+// threads while the tree is being scanned.
+class FileSystemQueries {
+    static final int DEFAULT_CUTOFF = 1000;
+
+    private final ForkJoinPool pool;
+    private final int cutoff;
+
+    public FileSystemQueries() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CUTOFF);
+    }
+
+    // cutoff: subtrees with at most this many nodes are scanned sequentially
+    public FileSystemQueries(ForkJoinPool pool, int cutoff) {
+        if (cutoff < 1) {
+            throw new IllegalArgumentException("Cutoff must be positive: " + cutoff);
+        }
+        this.pool = pool;
+        this.cutoff = cutoff;
+    }
+
+    // Sum of all file sizes (KB) below root
+    public long totalSize(Directory root) {
+        return run(root, Totals::new).size;
+    }
+
+    public long fileCount(Directory root) {
+        return run(root, Totals::new).files;
+    }
+
+    // The n largest files below root, largest first
+    public List<File> largestFiles(Directory root, int n) {
+        if (n <= 0) {
+            return new ArrayList<>();
+        }
+        List<File> largest = new ArrayList<>(run(root, () -> new Largest(n)).heap);
+        largest.sort(Largest.BY_SIZE.reversed());
+        return largest;
+    }
+
+    // Paths of files and directories matching a glob ('*', '**', '?'), e.g. "*.java" or "src/**/*.xml".
+    // A pattern without '/' matches names at any depth, like "**/" + glob, and is scanned in parallel;
+    // path patterns are evaluated by FileSystemPaths.glob, so both have the same semantics.
+    public List<String> find(Directory root, String glob) {
+        if (glob.indexOf('/') >= 0 || glob.contains("**")) {
+            return FileSystemPaths.glob(root, glob);
+        }
+        Pattern pattern = globToPattern(glob);
+        List<String> matches = run(root, () -> new Matches(pattern)).paths;
+        matches.sort(null);
+        return matches;
+    }
+
+    // Translate one glob segment into a regex: '*' and '?' match within a name
+    static Pattern globToPattern(String glob) {
+        StringBuilder regex = new StringBuilder(glob.length() + 8);
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*') {
+                regex.append("[^/]*");
+            } else if (c == '?') {
+                regex.append("[^/]");
+            } else if ("\\.[]{}()+-^$|".indexOf(c) >= 0) {
+                regex.append('\\').append(c);
+            } else {
+                regex.append(c);
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    private <A extends Accumulator<A>> A run(Directory root, Supplier<A> accumulators) {
+        return pool.invoke(new FoldTask<>(root, "", accumulators, cutoff));
+    }
+
+    // Per-task mutable result; merge() folds a finished subtask's result into this one
+    abstract static class Accumulator<A extends Accumulator<A>> {
+        abstract void visitFile(File file, String dirPath);
+
+        // Paths cost a string per directory, O(depth) chars each - only built when asked for
+        boolean needsPaths() {
+            return false;
+        }
+
+        void visitDirectory(Directory dir, String path) {
+        }
+
+        abstract void merge(A other);
+    }
+
+    @SuppressWarnings("serial")   // never serialized - the pool runs it in this JVM
+    private final class FoldTask<A extends Accumulator<A>> extends RecursiveTask<A> {
+        private final Directory dir;
+        private final String path;
+        private final Supplier<A> accumulators;
+        private final int limit;
+
+        FoldTask(Directory dir, String path, Supplier<A> accumulators, int limit) {
+            this.dir = dir;
+            this.path = path;
+            this.accumulators = accumulators;
+            this.limit = limit;
+        }
+
+        protected A compute() {
+            A result = accumulators.get();
+            boolean paths = result.needsPaths();
+            List<FoldTask<A>> forked = new ArrayList<>();
+            Directory current = dir;
+            String currentPath = path;
+            while (current != null) {
+                Directory next = null;   // one large subdirectory this task continues with
+                String nextPath = null;
+                for (FileSystemItem child : current.getChildren()) {
+                    if (child instanceof File) {
+                        result.visitFile((File) child, currentPath);
+                    } else if (child instanceof Directory) {
+                        Directory sub = (Directory) child;
+                        String subPath = paths ? childPath(currentPath, sub) : null;
+                        result.visitDirectory(sub, subPath);
+                        if (sub.getNodeCount() <= limit) {   // O(1) from the directory's aggregates
+                            walk(sub, subPath, result, paths);
+                        } else if (next == null) {
+                            next = sub;
+                            nextPath = subPath;
+                        } else {
+                            FoldTask<A> task = new FoldTask<>(sub, subPath, accumulators, limit);
+                            task.fork();
+                            forked.add(task);
+                        }
+                    }
+                }
+                current = next;
+                currentPath = nextPath;
+            }
+            for (int i = forked.size() - 1; i >= 0; i--) {   // join in reverse fork order
+                result.merge(forked.get(i).join());
+            }
+            return result;
+        }
+
+        // Pre-order walk with an explicit stack, so a deep chain of directories cannot overflow the thread stack
+        private void walk(Directory start, String startPath, A result, boolean paths) {
+            Deque<Directory> dirs = new ArrayDeque<>();
+            Deque<String> dirPaths = new ArrayDeque<>();
+            dirs.push(start);
+            if (paths) {
+                dirPaths.push(startPath);
+            }
+            while (!dirs.isEmpty()) {
+                Directory current = dirs.pop();
+                String currentPath = paths ? dirPaths.pop() : null;
+                for (FileSystemItem child : current.getChildren()) {
+                    if (child instanceof File) {
+                        result.visitFile((File) child, currentPath);
+                    } else if (child instanceof Directory) {
+                        Directory sub = (Directory) child;
+                        String subPath = paths ? childPath(currentPath, sub) : null;
+                        result.visitDirectory(sub, subPath);
+                        dirs.push(sub);
+                        if (paths) {
+                            dirPaths.push(subPath);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static String childPath(String parentPath, FileSystemItem child) {
+        return parentPath.isEmpty() ? child.getName() : parentPath + "/" + child.getName();
+    }
+
+    private static final class Totals extends Accumulator<Totals> {
+        long size;
+        long files;
+
+        void visitFile(File file, String dirPath) {
+            size += file.getSize();
+            files++;
+        }
+
+        void merge(Totals other) {
+            size += other.size;
+            files += other.files;
+        }
+    }
+
+    // Bounded min-heap: keeps the n largest files seen so far
+    private static final class Largest extends Accumulator<Largest> {
+        static final Comparator<File> BY_SIZE = Comparator.comparingInt(File::getSize);
+
+        final int n;
+        final PriorityQueue<File> heap;
+
+        Largest(int n) {
+            this.n = n;
+            this.heap = new PriorityQueue<>(n + 1, BY_SIZE);
+        }
+
+        void visitFile(File file, String dirPath) {
+            if (heap.size() < n) {
+                heap.add(file);
+            } else if (file.getSize() > heap.peek().getSize()) {
+                heap.poll();
+                heap.add(file);
+            }
+        }
+
+        void merge(Largest other) {
+            for (File file : other.heap) {
+                visitFile(file, null);
+            }
+        }
+    }
+
+    private static final class Matches extends Accumulator<Matches> {
+        final Pattern pattern;
+        final List<String> paths = new ArrayList<>();
+
+        Matches(Pattern pattern) {
+            this.pattern = pattern;
+        }
+
+        boolean needsPaths() {
+            return true;
+        }
+
+        void visitFile(File file, String dirPath) {
+            if (pattern.matcher(file.getName()).matches()) {   // build the path only for hits
+                paths.add(childPath(dirPath, file));
+            }
+        }
+
+        void visitDirectory(Directory dir, String path) {
+            if (pattern.matcher(dir.getName()).matches()) {
+                paths.add(path);
+            }
+        }
+
+        void merge(Matches other) {
+            paths.addAll(other.paths);
+        }
+    }
+}
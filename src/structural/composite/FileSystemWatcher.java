@@ -0,0 +1,311 @@
+package structural.composite;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Keeps an imported composite tree in sync with the directory it came from.
+//
+// Every directory is registered with a WatchService. Events are not applied one by one: a burst
+// (an editor's save, an unzip, a build) is collected for a short coalescing window into a set of
+// dirty paths, and each dirty path is then reconciled once against the disk - created, resized or
+// removed in the tree. Reconciling from the disk state rather than replaying event kinds means
+// create-then-delete, repeated modifies and reordered events all collapse to the right result.
+// Only the touched nodes change; their ancestors' aggregates are updated through add/remove/setSize.
+//
+// Directory is not thread-safe, so each batch is applied under a write lock. While start() runs (or
+// processEvents() is called on another thread), read the tree only through read(..), e.g.
+// watcher.read(() -> queries.totalSize(tree)) - a query then never sees a half-applied batch.
+// Waiting for events holds no lock.
+class FileSystemWatcher implements AutoCloseable {
+    private final Path diskRoot;
+    private final Directory tree;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> watched = new ConcurrentHashMap<>();
+    private final ReadWriteLock treeLock = new ReentrantReadWriteLock();
+    private final FileSystemImporter importer = new FileSystemImporter();
+    private Thread worker;
+
+    // Written only under the write lock in processEvents, readable without it
+    private volatile long batches;
+    private volatile long events;
+    private volatile long changes;
+    private volatile long listings;              // directories listed by rescans
+    private volatile long failures;              // batches the worker thread could not apply
+    private volatile RuntimeException lastFailure;
+
+    public FileSystemWatcher(Path diskRoot, Directory tree) throws IOException {
+        this.diskRoot = diskRoot;
+        this.tree = tree;
+        this.watchService = diskRoot.getFileSystem().newWatchService();
+        registerAll(diskRoot);
+    }
+
+    // Wait up to 'timeout' for changes, keep collecting for 'window' after the first one, then apply
+    // them as one batch. Returns the number of tree changes made.
+    public int processEvents(long timeout, long window, TimeUnit unit) throws InterruptedException {
+        WatchKey key = watchService.poll(timeout, unit);
+        if (key == null) {
+            return 0;
+        }
+        Set<Path> dirty = new LinkedHashSet<>();
+        Set<Path> overflowed = new LinkedHashSet<>();
+        long deadline = System.nanoTime() + unit.toNanos(window);
+        int collected = 0;
+        while (key != null) {
+            collected += collect(key, dirty, overflowed);
+            long remaining = deadline - System.nanoTime();
+            key = remaining > 0 ? watchService.poll(remaining, TimeUnit.NANOSECONDS) : watchService.poll();
+        }
+        treeLock.writeLock().lock();
+        try {
+            int applied = apply(dirty, overflowed);
+            events += collected;
+            batches++;
+            changes += applied;
+            return applied;
+        } finally {
+            treeLock.writeLock().unlock();
+        }
+    }
+
+    // Run a query against the tree while no batch is being applied
+    public <T> T read(Supplier<T> query) {
+        treeLock.readLock().lock();
+        try {
+            return query.get();
+        } finally {
+            treeLock.readLock().unlock();
+        }
+    }
+
+    // Sync continuously on a daemon thread until close()
+    public synchronized void start(long window, TimeUnit unit) {
+        if (worker != null) {
+            return;
+        }
+        worker = new Thread(() -> {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    try {
+                        processEvents(TimeUnit.SECONDS.toNanos(1), unit.toNanos(window), TimeUnit.NANOSECONDS);
+                    } catch (ClosedWatchServiceException e) {
+                        throw e;
+                    } catch (RuntimeException e) {
+                        // Record it and keep syncing - the next events for those paths repair the tree
+                        failures++;
+                        lastFailure = e;
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // closed
+            }
+        }, "file-system-watcher");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public void close() throws IOException {
+        Thread running;
+        synchronized (this) {
+            running = worker;
+        }
+        if (running != null) {
+            running.interrupt();
+        }
+        watchService.close();
+    }
+
+    public long getBatches() {
+        return batches;
+    }
+
+    public long getEvents() {
+        return events;
+    }
+
+    public long getChanges() {
+        return changes;
+    }
+
+    public long getDirectoriesListed() {
+        return listings;
+    }
+
+    // Batches the background thread failed to apply, and the most recent cause (null if none)
+    public long getFailures() {
+        return failures;
+    }
+
+    public RuntimeException getLastFailure() {
+        return lastFailure;
+    }
+
+    // Returns the number of events taken from the key
+    private int collect(WatchKey key, Set<Path> dirty, Set<Path> overflowed) {
+        Path dir = watched.get(key);
+        List<WatchEvent<?>> pending = key.pollEvents();
+        for (WatchEvent<?> event : pending) {
+            if (dir == null) {
+                continue;
+            }
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                overflowed.add(dir);   // events were lost - rescan the whole subtree
+            } else {
+                dirty.add(dir.resolve((Path) event.context()));
+            }
+        }
+        if (!key.reset()) {
+            watched.remove(key);   // directory is gone
+        }
+        return pending.size();
+    }
+
+    // Parents first, so a new directory exists before anything inside it is reconciled.
+    // Only directories whose events overflowed are rescanned in depth; everything else is one entry.
+    private int apply(Set<Path> dirty, Set<Path> overflowed) {
+        List<Path> ordered = new ArrayList<>(dirty);
+        ordered.addAll(overflowed);
+        ordered.sort(Comparator.comparingInt(Path::getNameCount));
+        int applied = 0;
+        for (Path path : ordered) {
+            try {
+                applied += overflowed.contains(path) ? rescanOverflowed(path) : reconcile(path);
+            } catch (IOException | UncheckedIOException | DirectoryIteratorException e) {
+                // the entry changed again while we looked at it (e.g. deleted mid-scan) - its next
+                // event will fix it up
+            }
+        }
+        return applied;
+    }
+
+    private int reconcile(Path path) throws IOException {
+        Path relative = diskRoot.relativize(path);
+        FileSystemItem parentItem = relative.getParent() == null ? tree : tree.resolve(toTreePath(relative.getParent()));
+        if (!(parentItem instanceof Directory)) {
+            return 0;   // parent not in the tree (yet) - its own reconcile imports this entry
+        }
+        Directory parent = (Directory) parentItem;
+        String name = relative.getFileName().toString();
+        FileSystemItem existing = parent.getChild(name);
+
+        if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+            if (existing instanceof Directory) {
+                // A MODIFY on a directory entry only says its contents changed - one level is enough,
+                // the directory's own watch key reports what happened further down
+                return rescan((Directory) existing, path, false);
+            }
+            if (existing != null) {
+                parent.remove(existing);
+            }
+            // Watch first, then import: anything created in between is both imported and reported,
+            // where the other order would miss entries written before the directory was registered
+            registerAll(path);
+            parent.add(importer.importTree(path));
+            return 1;
+        }
+        if (Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS)) {
+            int size = FileSystemImporter.toKilobytes(Files.size(path));
+            if (existing instanceof File) {
+                if (((File) existing).getSize() == size) {
+                    return 0;
+                }
+                ((File) existing).setSize(size);
+                return 1;
+            }
+            if (existing != null) {
+                parent.remove(existing);
+            }
+            parent.add(new File(name, size));
+            return 1;
+        }
+        if (existing != null) {   // deleted, or a symlink/special file - the importer skips those too
+            parent.remove(existing);
+            return 1;
+        }
+        return 0;
+    }
+
+    // Events for a directory were lost - rescan everything below it
+    private int rescanOverflowed(Path path) throws IOException {
+        if (path.equals(diskRoot)) {
+            return rescan(tree, diskRoot, true);
+        }
+        FileSystemItem item = tree.resolve(toTreePath(diskRoot.relativize(path)));
+        return item instanceof Directory ? rescan((Directory) item, path, true) : reconcile(path);
+    }
+
+    // Reconcile every child of a directory, in both directions. Child directories already in the
+    // tree are only checked for presence unless 'deep' is set (after an OVERFLOW).
+    private int rescan(Directory dir, Path path, boolean deep) throws IOException {
+        int applied = 0;
+        listings++;
+        Set<String> onDisk = new LinkedHashSet<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(path)) {
+            for (Path child : stream) {
+                String name = child.getFileName().toString();
+                onDisk.add(name);
+                FileSystemItem existing = dir.getChild(name);
+                if (existing instanceof Directory && Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                    applied += deep ? rescan((Directory) existing, child, true) : 0;
+                } else {
+                    applied += reconcile(child);
+                }
+            }
+        }
+        for (FileSystemItem child : new ArrayList<>(dir.getChildren())) {
+            if (!onDisk.contains(child.getName())) {
+                dir.remove(child);
+                applied++;
+            }
+        }
+        return applied;
+    }
+
+    private void registerAll(Path start) throws IOException {
+        List<Path> dirs;
+        try (Stream<Path> walk = Files.walk(start)) {
+            dirs = walk.filter(p -> Files.isDirectory(p, LinkOption.NOFOLLOW_LINKS)).collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();   // a directory vanished during the walk - report it like any other I/O error
+        }
+        for (Path dir : dirs) {
+            // Re-registering a known directory returns its existing key, so a moved directory gets its new path
+            watched.put(dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY), dir);
+        }
+    }
+
+    private static String toTreePath(Path relative) {
+        StringBuilder path = new StringBuilder();
+        for (Path segment : relative) {
+            if (path.length() > 0) {
+                path.append('/');
+            }
+            path.append(segment);
+        }
+        return path.toString();
+    }
+}
@@ -1,5 +1,15 @@
 package structural.composite;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
 public class TestCompositeFileSystem {
     public static void main(String[] args) {
         System.out.println("=== Testing Composite Pattern ===\n");
@@ -106,6 +116,414 @@ public class TestCompositeFileSystem {
         testDir.remove(tempFile);
         System.out.println("Directory children count after remove: " + testDir.getChildren().size());
 
+        // Test 9: Parallel aggregate queries
+        System.out.println("\nTest 9: Fork-join aggregate queries");
+        FileSystemQueries queries = new FileSystemQueries();
+        Directory project = createComplexStructure();
+        System.out.println("Total size: " + queries.totalSize(project) + " KB in " + queries.fileCount(project) + " files");
+        if (queries.totalSize(project) == 2300 && queries.fileCount(project) == 6) {
+            System.out.println("✓ Size and file count match the tree");
+        } else {
+            System.out.println("✗ Wrong totals");
+        }
+        List<File> largest = queries.largestFiles(project, 2);
+        if (largest.size() == 2 && largest.get(0).getName().equals("Service.java")
+                && largest.get(1).getName().equals("App.java")) {
+            System.out.println("✓ Largest files: " + largest.get(0).getName() + ", " + largest.get(1).getName());
+        } else {
+            System.out.println("✗ Wrong largest files");
+        }
+        List<String> javaFiles = queries.find(project, "*.java");
+        List<String> srcTree = queries.find(project, "src/**");
+        System.out.println("*.java -> " + javaFiles);
+        System.out.println("src/** -> " + srcTree);
+        if (javaFiles.equals(List.of("src/main/java/App.java", "src/main/java/Service.java")) && srcTree.size() == 4) {
+            System.out.println("✓ Glob queries match names and paths");
+        } else {
+            System.out.println("✗ Glob query results are wrong");
+        }
+
+        // Test 10: Large tree - parallel results equal a sequential walk
+        System.out.println("\nTest 10: Parallel scan of a large tree");
+        Directory big = createLargeTree(4, 12, 40);
+        for (int warmUp = 0; warmUp < 3; warmUp++) {   // let the JIT compile both paths before timing
+            sequentialSize(big);
+            queries.totalSize(big);
+        }
+        long start = System.nanoTime();
+        long sequentialSize = sequentialSize(big);
+        long sequentialMicros = (System.nanoTime() - start) / 1000;
+        start = System.nanoTime();
+        long parallelSize = queries.totalSize(big);
+        long parallelMicros = (System.nanoTime() - start) / 1000;
+        long files = queries.fileCount(big);
+        System.out.println(files + " files: sequential " + sequentialMicros + " us, fork-join " + parallelMicros + " us");
+        if (parallelSize == sequentialSize && files == 12L * 12 * 12 * 12 * 40) {
+            System.out.println("✓ Fork-join total matches sequential walk: " + parallelSize + " KB");
+        } else {
+            System.out.println("✗ Totals differ: " + parallelSize + " vs " + sequentialSize);
+        }
+
+        // Test 11: Incrementally maintained aggregates
+        System.out.println("\nTest 11: Incremental subtree aggregates");
+        Directory tracked = createComplexStructure();
+        Directory java = (Directory) ((Directory) ((Directory) tracked.getChildren().get(0)).getChildren().get(0)).getChildren().get(0);
+        System.out.println(tracked.getName() + ": " + tracked.getTotalSize() + " KB, " + tracked.getFileCount()
+                + " files, depth " + tracked.getDepth());
+        if (tracked.getTotalSize() == queries.totalSize(tracked) && tracked.getFileCount() == 6 && tracked.getDepth() == 4) {
+            System.out.println("✓ Aggregates match a full scan");
+        } else {
+            System.out.println("✗ Aggregates do not match a full scan");
+        }
+        File utils = new File("Utils.java", 1000);
+        java.add(utils);
+        boolean grew = tracked.getTotalSize() == 3300 && tracked.getFileCount() == 7 && java.getParent().getTotalSize() == 2250;
+        java.remove(new File("Utils.java", 1000));   // not a child - must not change anything
+        boolean ignored = tracked.getTotalSize() == 3300;
+        java.remove(utils);
+        boolean shrank = tracked.getTotalSize() == 2300 && tracked.getFileCount() == 6 && utils.getParent() == null;
+        if (grew && ignored && shrank) {
+            System.out.println("✓ Add and remove propagate deltas to every ancestor");
+        } else {
+            System.out.println("✗ grew=" + grew + ", ignored=" + ignored + ", shrank=" + shrank);
+        }
+        Directory src = java.getParent().getParent();
+        tracked.remove(src);
+        boolean depthDropped = tracked.getDepth() == 2 && tracked.getFileCount() == 4;
+        tracked.getChildren().stream().filter(c -> c instanceof Directory).findFirst()
+                .ifPresent(resources -> ((Directory) resources).add(src));   // move src under resources
+        if (depthDropped && tracked.getDepth() == 5 && tracked.getTotalSize() == 2300 && src.getParent().getName().equals("resources")) {
+            System.out.println("✓ Depth follows removals and moves");
+        } else {
+            System.out.println("✗ Depth is " + tracked.getDepth());
+        }
+        try {
+            java.add(tracked);
+            System.out.println("✗ Adding an ancestor should fail");
+        } catch (IllegalArgumentException e) {
+            System.out.println("✓ Cycles rejected: " + e.getMessage());
+        }
+
+        // Test 12: Path index - exact lookup, prefix listing and glob queries
+        System.out.println("\nTest 12: Path index lookups");
+        Directory indexed = createComplexStructure();
+        FileSystemItem app = indexed.resolve("src/main/java/App.java");
+        if (app instanceof File && FileSystemPaths.pathOf(app).equals("src/main/java/App.java")
+                && indexed.resolve("src/missing/App.java") == null && indexed.resolve("pom.xml/child") == null) {
+            System.out.println("✓ resolve() finds items by path and pathOf() round-trips: " + FileSystemPaths.pathOf(app));
+        } else {
+            System.out.println("✗ Path resolution is wrong");
+        }
+        List<String> listed = FileSystemPaths.list(indexed, "src/main/java/S");
+        List<String> rootListing = FileSystemPaths.list(indexed, "");
+        System.out.println("list(src/main/java/S) -> " + listed);
+        System.out.println("list(\"\") -> " + rootListing);
+        if (listed.equals(List.of("src/main/java/Service.java")) && rootListing.size() == 4) {
+            System.out.println("✓ Prefix listing only scans the last directory");
+        } else {
+            System.out.println("✗ Prefix listing is wrong");
+        }
+        List<String> globbed = FileSystemPaths.glob(indexed, "**/*.java");
+        List<String> configs = FileSystemPaths.glob(indexed, "resources/*.???");
+        System.out.println("glob(**/*.java) -> " + globbed);
+        System.out.println("glob(resources/*.???) -> " + configs);
+        if (globbed.equals(List.of("src/main/java/App.java", "src/main/java/Service.java"))
+                && configs.equals(List.of("resources/data.xml"))) {
+            System.out.println("✓ Glob queries walk the index segment by segment");
+        } else {
+            System.out.println("✗ Glob results are wrong");
+        }
+        Directory resourcesDir = (Directory) indexed.getChild("resources");
+        File renamedData = new File("data.xml", 999);
+        resourcesDir.remove(resourcesDir.getChild("data.xml"));
+        resourcesDir.add(renamedData);
+        if (indexed.resolve("resources/data.xml") == renamedData) {
+            System.out.println("✓ Index follows add and remove");
+        } else {
+            System.out.println("✗ Index is stale after remove/add");
+        }
+
+        String deepPath = "dir3/dir7/dir1/dir11/file39.dat";
+        start = System.nanoTime();
+        FileSystemItem deep = null;
+        for (int i = 0; i < 10_000; i++) {
+            deep = big.resolve(deepPath);
+        }
+        long indexedNanos = (System.nanoTime() - start) / 10_000;
+        start = System.nanoTime();
+        FileSystemItem scanned = null;
+        for (int i = 0; i < 10_000; i++) {
+            scanned = scanResolve(big, deepPath);
+        }
+        long scanNanos = (System.nanoTime() - start) / 10_000;
+        if (deep != null && deep == scanned) {
+            System.out.println("✓ Deep lookup: " + indexedNanos + " ns indexed vs " + scanNanos + " ns scanning children");
+        } else {
+            System.out.println("✗ Deep lookup failed");
+        }
+
+        // Test 13: Columnar storage backend
+        System.out.println("\nTest 13: Columnar tree backend");
+        ColumnarFileTree columnar = ColumnarFileTree.from(createComplexStructure());
+        FileSystemItem view = columnar.view(columnar.root());
+        System.out.println("✓ Columnar tree displayed through the FileSystemItem interface:");
+        view.display();
+        int javaDir = columnar.findChild(columnar.findChild(columnar.findChild(columnar.root(), "src"), "main"), "java");
+        if (columnar.totalSize() == 2300 && columnar.fileCount() == 6 && columnar.subtreeSize(javaDir) == 1250
+                && columnar.getName(columnar.getParent(javaDir)).equals("main")) {
+            System.out.println("✓ Sizes, names and parent links match the object tree");
+        } else {
+            System.out.println("✗ Columnar tree does not match the object tree");
+        }
+        try {
+            view.add(new File("x.txt", 1));
+            System.out.println("✗ Views should be read-only");
+        } catch (UnsupportedOperationException e) {
+            System.out.println("✓ " + e.getMessage());
+        }
+
+        ColumnarFileTree bigColumnar = ColumnarFileTree.from(big);
+        for (int warmUp = 0; warmUp < 3; warmUp++) {
+            bigColumnar.totalSize();
+        }
+        start = System.nanoTime();
+        long columnarTotal = bigColumnar.totalSize();
+        long columnarMicros = (System.nanoTime() - start) / 1000;
+        double bytesPerNode = (double) bigColumnar.estimatedBytes() / bigColumnar.nodeCount();
+        System.out.println(String.format("%d nodes in %.1f MB (%.1f bytes/node), total size scan %d us",
+                bigColumnar.nodeCount(), bigColumnar.estimatedBytes() / 1048576.0, bytesPerNode, columnarMicros));
+        if (columnarTotal == big.getTotalSize() && bytesPerNode < 64) {
+            System.out.println("✓ Columnar scan matches the object tree's aggregate");
+        } else {
+            System.out.println("✗ Columnar total " + columnarTotal + " vs " + big.getTotalSize());
+        }
+
+        // Test 14: Importing a real directory tree from disk
+        System.out.println("\nTest 14: Importing a directory tree with walkFileTree");
+        try {
+            Path diskRoot = Files.createTempDirectory("composite_import");
+            Files.createDirectories(diskRoot.resolve("src/main/java"));
+            Files.createDirectories(diskRoot.resolve("docs"));
+            Files.write(diskRoot.resolve("src/main/java/App.java"), new byte[5000]);
+            Files.write(diskRoot.resolve("src/main/java/Service.java"), new byte[2048]);
+            Files.write(diskRoot.resolve("docs/guide.md"), new byte[100]);
+            for (int i = 0; i < 25; i++) {
+                Files.write(diskRoot.resolve("docs/page" + i + ".html"), new byte[1024]);
+            }
+            // Not followed by default - skipped, like the watcher skips it
+            Files.createSymbolicLink(diskRoot.resolve("docs/latest.html"), diskRoot.resolve("docs/page0.html"));
+
+            List<String> progress = new ArrayList<>();
+            FileSystemImporter importer = new FileSystemImporter()
+                    .setProgressListener((fileTotal, dirTotal, byteTotal, done) ->
+                            progress.add(fileTotal + " files" + (done ? " (done)" : "")), 10);
+            Directory imported = importer.importTree(diskRoot);
+            System.out.println("Progress reports: " + progress);
+            System.out.println("Imported " + importer.getFilesImported() + " files and " + importer.getDirectoriesImported()
+                    + " directories (" + importer.getBytesImported() + " bytes)");
+            FileSystemItem importedApp = imported.resolve("src/main/java/App.java");
+            if (imported.getFileCount() == 28 && importer.getDirectoriesImported() == 5
+                    && importedApp instanceof File && ((File) importedApp).getSize() == 5
+                    && imported.getTotalSize() == 5 + 2 + 1 + 25 && imported.getDepth() == 4) {
+                System.out.println("✓ Tree, sizes (rounded up to KB) and aggregates match the disk");
+            } else {
+                System.out.println("✗ Imported tree does not match the disk");
+            }
+            if (progress.size() == 3 && progress.get(2).equals("28 files (done)")) {
+                System.out.println("✓ Progress reported every 10 files and at the end");
+            } else {
+                System.out.println("✗ Unexpected progress reports");
+            }
+            try {
+                new FileSystemImporter().setMaxDepth(0);
+                System.out.println("✗ maxDepth 0 should be rejected");
+            } catch (IllegalArgumentException e) {
+                System.out.println("✓ " + e.getMessage());
+            }
+            Directory shallow = new FileSystemImporter().setMaxDepth(1).importTree(diskRoot);
+            if (shallow.getChildren().size() == 2 && shallow.getFileCount() == 0) {
+                System.out.println("✓ maxDepth 1 keeps the root's subdirectories, empty");
+            } else {
+                System.out.println("✗ maxDepth 1 imported " + shallow.getNodeCount() + " nodes");
+            }
+            deleteRecursively(diskRoot);
+        } catch (IOException e) {
+            System.out.println("✗ Import failed: " + e.getMessage());
+        }
+
+        // Test 15: Keeping an imported tree in sync with WatchService
+        System.out.println("\nTest 15: Incremental sync with WatchService");
+        try {
+            Path watchedRoot = Files.createTempDirectory("composite_watch");
+            Files.createDirectories(watchedRoot.resolve("logs"));
+            Files.write(watchedRoot.resolve("logs/app.log"), new byte[1024]);
+            Files.write(watchedRoot.resolve("notes.txt"), new byte[2048]);
+            Directory synced = new FileSystemImporter().importTree(watchedRoot);
+
+            try (FileSystemWatcher watcher = new FileSystemWatcher(watchedRoot, synced)) {
+                Files.write(watchedRoot.resolve("logs/app.log"), new byte[10 * 1024]);   // modify
+                for (int i = 0; i < 20; i++) {                                          // burst of writes
+                    Files.write(watchedRoot.resolve("logs/app.log"), new byte[(11 + i) * 1024]);
+                }
+                Files.delete(watchedRoot.resolve("notes.txt"));                          // delete
+                Files.createDirectories(watchedRoot.resolve("cache/tiles"));             // new subtree
+                Files.write(watchedRoot.resolve("cache/tiles/t1.bin"), new byte[4096]);
+                Files.write(watchedRoot.resolve("temp.txt"), new byte[10]);              // create then delete
+                Files.delete(watchedRoot.resolve("temp.txt"));
+                Files.createSymbolicLink(watchedRoot.resolve("current.log"),                 // skipped, as on import
+                        watchedRoot.resolve("logs/app.log"));
+
+                long deadline = System.currentTimeMillis() + 5000;
+                while (System.currentTimeMillis() < deadline && !(synced.getTotalSize() == 34 && synced.getFileCount() == 2
+                        && synced.resolve("cache/tiles/t1.bin") != null)) {
+                    watcher.processEvents(500, 100, TimeUnit.MILLISECONDS);
+                }
+                System.out.println("Applied " + watcher.getEvents() + " events as " + watcher.getChanges()
+                        + " changes in " + watcher.getBatches() + " batch(es)");
+                FileSystemItem log = synced.resolve("logs/app.log");
+                if (log instanceof File && ((File) log).getSize() == 30 && synced.getChild("notes.txt") == null
+                        && synced.getChild("temp.txt") == null && synced.resolve("cache/tiles/t1.bin") != null
+                        && synced.getTotalSize() == 34 && synced.getFileCount() == 2) {
+                    System.out.println("✓ Modify, delete and new subtree applied in place with correct aggregates");
+                } else {
+                    System.out.println("✗ Tree out of sync: " + synced.getTotalSize() + " KB, " + synced.getFileCount() + " files");
+                }
+                if (watcher.getEvents() > watcher.getChanges()) {
+                    System.out.println("✓ Event bursts coalesced into fewer tree updates");
+                } else {
+                    System.out.println("✗ Events were not coalesced");
+                }
+
+                long listedBefore = watcher.getDirectoriesListed();
+                Files.write(watchedRoot.resolve("cache/tiles/t2.bin"), new byte[1024]);   // inside the new subtree
+                deadline = System.currentTimeMillis() + 5000;
+                while (System.currentTimeMillis() < deadline && synced.resolve("cache/tiles/t2.bin") == null) {
+                    watcher.processEvents(500, 100, TimeUnit.MILLISECONDS);
+                }
+                if (synced.resolve("cache/tiles/t2.bin") != null && watcher.read(synced::getTotalSize) == 35) {
+                    System.out.println("✓ Directories created after import are watched too");
+                } else {
+                    System.out.println("✗ New directory is not watched");
+                }
+                long listings = watcher.getDirectoriesListed() - listedBefore;
+                if (listings <= 2) {
+                    System.out.println("✓ One new file listed " + listings + " director(ies) - no subtree rescan");
+                } else {
+                    System.out.println("✗ One new file caused " + listings + " directory listings");
+                }
+            }
+            deleteRecursively(watchedRoot);
+        } catch (IOException | InterruptedException e) {
+            System.out.println("✗ Watch sync failed: " + e.getMessage());
+        }
+
+        // Test 16: Very deep trees and trees of empty directories
+        System.out.println("\nTest 16: Deep chains and empty-directory subtrees");
+        Directory chain = new Directory("d");
+        chain.add(new File("bottom.bin", 7));
+        for (int level = 1; level < 20_000; level++) {   // built bottom-up, so every add is O(1)
+            Directory parentLevel = new Directory("d");
+            parentLevel.add(chain);
+            chain = parentLevel;
+        }
+        try {
+            long chainSize = queries.totalSize(chain);
+            List<File> chainLargest = queries.largestFiles(chain, 1);
+            if (chainSize == 7 && chainLargest.size() == 1 && chain.getNodeCount() == 20_000) {
+                System.out.println("✓ 20,000-level chain scanned without recursion: " + chainSize + " KB");
+            } else {
+                System.out.println("✗ Deep chain scanned wrong: " + chainSize + " KB");
+            }
+        } catch (StackOverflowError e) {
+            System.out.println("✗ Deep chain overflowed the stack");
+        }
+
+        Directory hollow = new Directory("hollow");
+        for (int i = 0; i < 50; i++) {
+            Directory branch = new Directory("branch" + i);
+            for (int j = 0; j < 40; j++) {
+                branch.add(new Directory("empty" + j));
+            }
+            hollow.add(branch);
+        }
+        FileSystemQueries smallCutoff = new FileSystemQueries(ForkJoinPool.commonPool(), 100);
+        if (hollow.getFileCount() == 0 && hollow.getNodeCount() == 50 * 41
+                && smallCutoff.find(hollow, "empty3?").size() == 50 * 10) {
+            System.out.println("✓ Empty directories count toward the cutoff: " + hollow.getNodeCount() + " nodes, 0 files");
+        } else {
+            System.out.println("✗ Node count or empty-directory scan is wrong: " + hollow.getNodeCount());
+        }
+
+        // Test 17: Items that don't track a parent, and paths of columnar handles
+        System.out.println("\nTest 17: Foreign items in directories and columnar paths");
+        int appId = columnar.findChild(javaDir, "App.java");
+        String handlePath = FileSystemPaths.pathOf(columnar.view(appId));
+        FileSystemItem appParent = columnar.view(appId).getParent();
+        if (handlePath.equals("src/main/java/App.java") && FileSystemPaths.pathOf(view).isEmpty()
+                && appParent != null && appParent.getName().equals("java") && view.getParent() == null) {
+            System.out.println("✓ pathOf() walks a handle's parent ids: " + handlePath);
+        } else {
+            System.out.println("✗ Handle path is '" + handlePath + "'");
+        }
+        Directory mixed = new Directory("mixed");
+        FileSystemItem mounted = columnar.view(javaDir);   // a handle never learns its Directory parent
+        mixed.add(mounted);
+        mixed.remove(mounted);
+        if (mixed.getChildren().isEmpty() && mixed.getChild(mounted.getName()) == null && mixed.getNodeCount() == 0) {
+            System.out.println("✓ Item without a parent link removed and aggregates updated");
+        } else {
+            System.out.println("✗ Item without a parent link could not be removed");
+        }
+
+        // Test 18: Globs with several '**' list each path once
+        System.out.println("\nTest 18: Repeated '**' segments");
+        List<String> doubled = FileSystemPaths.glob(indexed, "**/**/*.java");
+        List<String> twoStars = FileSystemPaths.glob(indexed, "**/main/**/*.java");
+        System.out.println("glob(**/**/*.java) -> " + doubled);
+        if (doubled.equals(globbed) && twoStars.equals(globbed)) {
+            System.out.println("✓ No duplicate paths from overlapping '**' expansions");
+        } else {
+            System.out.println("✗ Duplicate or missing paths: " + doubled + " / " + twoStars);
+        }
+
+        Directory dupes = new Directory("dupes");
+        for (int i = 0; i < 2; i++) {
+            Directory lib = new Directory("lib");   // two siblings with one name
+            lib.add(new File("a.jar", 1));
+            dupes.add(lib);
+        }
+        dupes.add(new File("top.jar", 1));
+        List<String> jarsByGlob = FileSystemPaths.glob(dupes, "**/*.jar");
+        List<String> jarsByFind = queries.find(dupes, "*.jar");
+        List<String> jarPaths = queries.find(dupes, "**/*.jar");
+        System.out.println("glob(**/*.jar) -> " + jarsByGlob);
+        if (jarsByGlob.equals(List.of("lib/a.jar", "lib/a.jar", "top.jar")) && jarsByFind.equals(jarsByGlob)
+                && jarPaths.equals(jarsByGlob) && FileSystemPaths.glob(dupes, "lib/a.jar").size() == 2) {
+            System.out.println("✓ find and glob agree: '**' spans zero directories, same-named items each listed");
+        } else {
+            System.out.println("✗ find " + jarsByFind + " and glob " + jarsByGlob + " disagree");
+        }
+        try {
+            if (FileSystemPaths.glob(chain, "**").size() == 20_000
+                    && FileSystemPaths.glob(chain, "**/bottom.bin").size() == 1) {
+                System.out.println("✓ glob walked the 20,000-level chain with an explicit stack");
+            } else {
+                System.out.println("✗ glob over the deep chain returned the wrong paths");
+            }
+        } catch (StackOverflowError e) {
+            System.out.println("✗ glob overflowed the stack on the deep chain");
+        }
+        try {
+            ColumnarFileTree columnarChain = ColumnarFileTree.from(chain);
+            if (columnarChain.nodeCount() == chain.getNodeCount() + 1 && columnarChain.totalSize() == 7) {
+                System.out.println("✓ Deep chain copied into columns without recursion: " + columnarChain.nodeCount() + " nodes");
+            } else {
+                System.out.println("✗ Columnar copy of the chain has " + columnarChain.nodeCount() + " nodes");
+            }
+        } catch (StackOverflowError e) {
+            System.out.println("✗ Columnar copy overflowed the stack on the deep chain");
+        }
+
         System.out.println("\n=== Test Summary ===");
         System.out.println("Composite Pattern verified:");
         System.out.println("- Files and directories implement common interface");
@@ -113,6 +531,74 @@ public class TestCompositeFileSystem {
         System.out.println("- Uniform treatment of individual and composite objects");
         System.out.println("- Exception handling for invalid operations on leaves");
         System.out.println("- Recursive structure display works correctly");
+        System.out.println("- Aggregate queries run in parallel as fork-join tasks");
+        System.out.println("- Directories keep O(1) size, file count and depth aggregates");
+        System.out.println("- Name index gives O(depth) path lookup, prefix listing and glob queries");
+        System.out.println("- Columnar backend stores huge trees in primitive arrays behind the same interface");
+        System.out.println("- Importer builds the tree from disk with walkFileTree and reports progress");
+        System.out.println("- Watcher applies coalesced file system changes to the tree in place");
+    }
+
+    // depth levels of 'fanOut' directories, each leaf directory holding 'filesPerDir' files
+    private static Directory createLargeTree(int depth, int fanOut, int filesPerDir) {
+        Directory root = new Directory("big");
+        fill(root, depth, fanOut, filesPerDir);
+        return root;
+    }
+
+    private static void fill(Directory dir, int depth, int fanOut, int filesPerDir) {
+        if (depth == 0) {
+            for (int i = 0; i < filesPerDir; i++) {
+                dir.add(new File("file" + i + ".dat", (i * 37) % 1000 + 1));
+            }
+            return;
+        }
+        for (int i = 0; i < fanOut; i++) {
+            Directory sub = new Directory("dir" + i);
+            fill(sub, depth - 1, fanOut, filesPerDir);
+            dir.add(sub);
+        }
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> children = Files.list(path)) {
+                for (Path child : children.collect(Collectors.toList())) {
+                    deleteRecursively(child);
+                }
+            }
+        }
+        Files.delete(path);
+    }
+
+    // Path lookup without the index: linear scan of the children at every level
+    private static FileSystemItem scanResolve(Directory root, String path) {
+        FileSystemItem current = root;
+        for (String segment : path.split("/")) {
+            FileSystemItem next = null;
+            for (FileSystemItem child : ((Directory) current).getChildren()) {
+                if (child.getName().equals(segment)) {
+                    next = child;
+                    break;
+                }
+            }
+            if (next == null) {
+                return null;
+            }
+            current = next;
+        }
+        return current;
+    }
+
+    private static long sequentialSize(FileSystemItem item) {
+        if (item instanceof File) {
+            return ((File) item).getSize();
+        }
+        long total = 0;
+        for (FileSystemItem child : ((Directory) item).getChildren()) {
+            total += sequentialSize(child);
+        }
+        return total;
     }
 
     private static Directory createComplexStructure() {
@@ -4,6 +4,16 @@ package structural.decorator;
 interface Coffee {
     String getDesc();
     double getCost();
+
+    // Exact price in cents; coffees that only know a double price are rounded once, here
+    default long getCostCents() {
+        return Math.round(getCost() * 100);
+    }
+
+    // Immutable copy with the cost precomputed - see CompiledCoffee
+    default Coffee compile() {
+        return CompiledCoffee.compile(this);
+    }
 }
 
 // Concrete component - basic coffee implementation
@@ -15,6 +25,10 @@ class PlainCoffee implements Coffee {
     public double getCost() {
         return 2.0;
     }
+
+    public long getCostCents() {
+        return 200;
+    }
 }
 
 // Abstract decorator - base class for all decorators
@@ -33,6 +47,28 @@ abstract class CoffeeDecorator implements Coffee {
     public double getCost() {
         return coffee.getCost();
     }
+
+    // getCostCents() is deliberately not delegated here: a decorator that only overrides getCost()
+    // must fall back to Coffee's default, which rounds its own getCost() once
+
+    public Coffee getWrapped() {
+        return coffee;
+    }
+
+    // What this decorator appends to the description, or null if it changes it in some other way
+    public String getLabel() {
+        return null;
+    }
+
+    // What this decorator adds to the cost
+    public double getExtraCost() {
+        return 0;
+    }
+
+    // The same in exact cents - decorators that supply it also override getCostCents()
+    public long getExtraCostCents() {
+        return 0;
+    }
 }
 
 // Concrete decorator - adds milk functionality
@@ -42,11 +78,27 @@ class MilkDecorator extends CoffeeDecorator {
     }
 
     public String getDesc() {
-        return coffee.getDesc() + ", Milk";
+        return coffee.getDesc() + ", " + getLabel();
     }
 
     public double getCost() {
-        return coffee.getCost() + 0.5;
+        return coffee.getCost() + getExtraCost();
+    }
+
+    public long getCostCents() {
+        return coffee.getCostCents() + getExtraCostCents();
+    }
+
+    public String getLabel() {
+        return "Milk";
+    }
+
+    public double getExtraCost() {
+        return 0.5;
+    }
+
+    public long getExtraCostCents() {
+        return 50;
     }
 }
 
@@ -57,10 +109,26 @@ class SugarDecorator extends CoffeeDecorator {
     }
 
     public String getDesc() {
-        return coffee.getDesc() + ", Sugar";
+        return coffee.getDesc() + ", " + getLabel();
     }
 
     public double getCost() {
-        return coffee.getCost() + 0.3;
+        return coffee.getCost() + getExtraCost();
+    }
+
+    public long getCostCents() {
+        return coffee.getCostCents() + getExtraCostCents();
+    }
+
+    public String getLabel() {
+        return "Sugar";
+    }
+
+    public double getExtraCost() {
+        return 0.3;
+    }
+
+    public long getExtraCostCents() {
+        return 30;
     }
 }
\ No newline at end of file
@@ -0,0 +1,117 @@
+package structural.decorator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.UnaryOperator;
+
+// Toppings the menu knows how to build, in the order they are applied
+enum Topping {
+    MILK(MilkDecorator::new),
+    SUGAR(SugarDecorator::new);
+
+    private final UnaryOperator<Coffee> decorator;
+
+    Topping(UnaryOperator<Coffee> decorator) {
+        this.decorator = decorator;
+    }
+
+    public Coffee wrap(Coffee coffee) {
+        return decorator.apply(coffee);
+    }
+
+    // Topping a decorator stands for, or null for decorators the menu does not know
+    static Topping of(Coffee decorator) {
+        if (decorator.getClass() == MilkDecorator.class) {
+            return MILK;
+        }
+        if (decorator.getClass() == SugarDecorator.class) {
+            return SUGAR;
+        }
+        return null;
+    }
+}
+
+// Canonicalizing factory: one shared, pre-compiled Coffee per distinct topping sequence.
+//
+// Sequences are interned in a trie with one AtomicReferenceArray of children per node, indexed by
+// Topping ordinal. A lookup for a known combination is one array read per topping - no locks, no
+// hashing and no allocation. A new combination is compiled from its parent's shared coffee and
+// published with a CAS, so concurrent first requests agree on a single instance.
+class CoffeeMenu {
+    private static final Topping[] TOPPINGS = Topping.values();
+
+    private final Node root = new Node(CompiledCoffee.compile(new PlainCoffee()));
+    private final AtomicInteger combinations = new AtomicInteger(1);
+
+    // Shared coffee for plain coffee with these toppings applied in order
+    public CompiledCoffee get(Topping... toppings) {
+        Node node = root;
+        for (Topping topping : toppings) {
+            node = node.child(topping);
+        }
+        return node.coffee;
+    }
+
+    // Indexed rather than iterated, so hot lookups don't allocate an Iterator
+    public CompiledCoffee get(List<Topping> toppings) {
+        Node node = root;
+        for (int i = 0, n = toppings.size(); i < n; i++) {
+            node = node.child(toppings.get(i));
+        }
+        return node.coffee;
+    }
+
+    // Canonical shared instance for an existing chain over PlainCoffee; chains with decorators or
+    // a base the menu does not know are compiled on their own instead
+    public Coffee canonical(Coffee chain) {
+        List<Topping> reversed = new ArrayList<>();
+        Coffee current = chain;
+        while (current instanceof CoffeeDecorator) {
+            Topping topping = Topping.of(current);
+            if (topping == null) {
+                return chain.compile();
+            }
+            reversed.add(topping);
+            current = ((CoffeeDecorator) current).getWrapped();
+        }
+        if (current.getClass() != PlainCoffee.class) {
+            return chain.compile();
+        }
+        Node node = root;
+        for (int i = reversed.size() - 1; i >= 0; i--) {
+            node = node.child(reversed.get(i));
+        }
+        return node.coffee;
+    }
+
+    // Distinct combinations built so far, including plain coffee
+    public int size() {
+        return combinations.get();
+    }
+
+    private final class Node {
+        final CompiledCoffee coffee;
+        final AtomicReferenceArray<Node> children = new AtomicReferenceArray<>(TOPPINGS.length);
+
+        Node(CompiledCoffee coffee) {
+            this.coffee = coffee;
+        }
+
+        Node child(Topping topping) {
+            int slot = topping.ordinal();
+            Node existing = children.get(slot);
+            if (existing != null) {
+                return existing;
+            }
+            // Decorating the parent's compiled coffee costs one layer, not the whole sequence
+            Node created = new Node(CompiledCoffee.compile(topping.wrap(coffee)));
+            if (children.compareAndSet(slot, null, created)) {
+                combinations.incrementAndGet();
+                return created;
+            }
+            return children.get(slot);
+        }
+    }
+}
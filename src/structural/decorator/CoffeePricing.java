@@ -0,0 +1,35 @@
+package structural.decorator;
+
+// Exact batch pricing on the cents path.
+//
+// Summing getCost() doubles drifts (0.1 + 0.2 != 0.3), and fixing totals afterwards with BigDecimal
+// allocates per order. Prices here are long cents, added exactly with no allocation; overflow
+// throws instead of wrapping silently.
+class CoffeePricing {
+
+    // Price of every order, written into 'cents' (same length as 'orders')
+    public static void priceAll(Coffee[] orders, long[] cents) {
+        if (cents.length < orders.length) {
+            throw new IllegalArgumentException("Need room for " + orders.length + " prices, got " + cents.length);
+        }
+        for (int i = 0; i < orders.length; i++) {
+            cents[i] = orders[i].getCostCents();
+        }
+    }
+
+    // Exact total of all orders, in cents
+    public static long totalCents(Coffee[] orders) {
+        long total = 0;
+        for (Coffee order : orders) {
+            total = Math.addExact(total, order.getCostCents());
+        }
+        return total;
+    }
+
+    // "$1234.50" - for display only; arithmetic stays in cents
+    public static String format(long cents) {
+        long abs = Math.abs(cents);
+        long fraction = abs % 100;
+        return (cents < 0 ? "-$" : "$") + abs / 100 + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+}
@@ -0,0 +1,85 @@
+package structural.decorator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// A decorator chain flattened into one immutable Coffee.
+//
+// getCost() on a chain recurses through every wrapper and getDesc() concatenates a new string at
+// each layer. compile() walks the chain once, iteratively, and keeps the summed cost in a field and
+// the toppings' labels in an array; the description is built on first use and then cached.
+// Repeated pricing of the same order becomes a field read.
+final class CompiledCoffee implements Coffee {
+    private final Coffee base;        // innermost coffee that is not a flattenable decorator
+    private final String[] labels;    // innermost first, as getDesc() appends them
+    private final double cost;
+    private final long costCents;
+    private String desc;              // built lazily; racy but benign - Strings are immutable
+
+    private CompiledCoffee(Coffee base, String[] labels, double cost, long costCents) {
+        this.base = base;
+        this.labels = labels;
+        this.cost = cost;
+        this.costCents = costCents;
+    }
+
+    public static CompiledCoffee compile(Coffee coffee) {
+        if (coffee instanceof CompiledCoffee) {
+            return (CompiledCoffee) coffee;
+        }
+        // Unwrap outermost-first; stop at anything whose effect we cannot reproduce
+        List<CoffeeDecorator> layers = new ArrayList<>();
+        Coffee current = coffee;
+        while (current instanceof CoffeeDecorator && ((CoffeeDecorator) current).getLabel() != null) {
+            layers.add((CoffeeDecorator) current);
+            current = ((CoffeeDecorator) current).getWrapped();
+        }
+        Coffee base = current;
+        String[] labels = new String[layers.size()];
+        double cost = base.getCost();
+        // Add extras innermost-first - the same order as the recursive getCost(), so the double
+        // result is bit-for-bit identical
+        for (int i = layers.size() - 1, j = 0; i >= 0; i--, j++) {
+            CoffeeDecorator layer = layers.get(i);
+            cost += layer.getExtraCost();
+            labels[j] = layer.getLabel();
+        }
+        // Cents come from the chain itself, so a layer without exact cents is rounded the way
+        // the chain rounds it rather than counted as 0
+        return new CompiledCoffee(base, labels, cost, coffee.getCostCents());
+    }
+
+    public double getCost() {
+        return cost;
+    }
+
+    public long getCostCents() {
+        return costCents;
+    }
+
+    public String getDesc() {
+        String built = desc;
+        if (built == null) {
+            String baseDesc = base.getDesc();
+            int length = baseDesc.length();
+            for (String label : labels) {
+                length += 2 + label.length();
+            }
+            StringBuilder sb = new StringBuilder(length).append(baseDesc);
+            for (String label : labels) {
+                sb.append(", ").append(label);
+            }
+            built = sb.toString();
+            desc = built;
+        }
+        return built;
+    }
+
+    public Coffee compile() {
+        return this;
+    }
+
+    public int getToppingCount() {
+        return labels.length;
+    }
+}
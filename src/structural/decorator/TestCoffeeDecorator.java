@@ -1,5 +1,11 @@
 package structural.decorator;
 
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
 public class TestCoffeeDecorator {
     public static void main(String[] args) {
         System.out.println("=== Testing Decorator Pattern ===\n");
@@ -94,6 +100,182 @@ public class TestCoffeeDecorator {
             System.out.println("✗ Cost calculation incorrect");
         }
 
+        // Test 9: Compiling a decorator chain
+        System.out.println("\nTest 9: Compiling a decorator chain");
+        Coffee order = new SugarDecorator(new MilkDecorator(new SugarDecorator(new PlainCoffee())));
+        Coffee compiled = order.compile();
+        System.out.println("Compiled: " + compiled.getDesc() + " - $" + compiled.getCost());
+        if (compiled.getCost() == order.getCost() && compiled.getDesc().equals(order.getDesc())
+                && compiled.getDesc() == compiled.getDesc() && compiled.compile() == compiled) {
+            System.out.println("✓ Same cost and description; description built once and cached");
+        } else {
+            System.out.println("✗ Compiled coffee differs from its chain");
+        }
+        Coffee opaque = new CoffeeDecorator(new MilkDecorator(new PlainCoffee())) {
+            public String getDesc() {
+                return coffee.getDesc() + " (decaf)";
+            }
+        };
+        Coffee compiledOpaque = new SugarDecorator(opaque).compile();
+        if (compiledOpaque.getDesc().equals("Plain Coffee, Milk (decaf), Sugar")) {
+            System.out.println("✓ Decorators without a label are kept as an opaque base: " + compiledOpaque.getDesc());
+        } else {
+            System.out.println("✗ Opaque decorator flattened incorrectly: " + compiledOpaque.getDesc());
+        }
+
+        // Test 10: Deep chains - pricing becomes a field read
+        System.out.println("\nTest 10: Repeated pricing of a deep chain");
+        Coffee deep = new PlainCoffee();
+        for (int i = 0; i < 500; i++) {
+            deep = i % 2 == 0 ? new MilkDecorator(deep) : new SugarDecorator(deep);
+        }
+        Coffee deepCompiled = deep.compile();
+        double chainTotal = 0;
+        double compiledTotal = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < 10_000; i++) {
+            chainTotal += deep.getCost();
+        }
+        long chainMicros = (System.nanoTime() - start) / 1000;
+        start = System.nanoTime();
+        for (int i = 0; i < 10_000; i++) {
+            compiledTotal += deepCompiled.getCost();
+        }
+        long compiledMicros = (System.nanoTime() - start) / 1000;
+        System.out.println("10,000 prices of a 500-topping order: chain " + chainMicros + " us, compiled " + compiledMicros + " us");
+        if (chainTotal == compiledTotal && deepCompiled.getDesc().equals(deep.getDesc())) {
+            System.out.println("✓ Compiled deep chain prices identically");
+        } else {
+            System.out.println("✗ Compiled deep chain differs");
+        }
+
+        // Test 11: Interned topping combinations
+        System.out.println("\nTest 11: Canonical coffee per topping sequence");
+        CoffeeMenu menu = new CoffeeMenu();
+        Coffee latte = menu.get(Topping.MILK, Topping.SUGAR);
+        Coffee sameLatte = menu.get(List.of(Topping.MILK, Topping.SUGAR));
+        Coffee reversed = menu.get(Topping.SUGAR, Topping.MILK);
+        Coffee fromChain = menu.canonical(new SugarDecorator(new MilkDecorator(new PlainCoffee())));
+        System.out.println("Milk then sugar: " + latte.getDesc() + " - $" + latte.getCost());
+        if (latte == sameLatte && latte == fromChain && latte != reversed
+                && latte.getDesc().equals("Plain Coffee, Milk, Sugar")
+                && latte.getCost() == new SugarDecorator(new MilkDecorator(new PlainCoffee())).getCost()) {
+            System.out.println("✓ Same sequence -> same shared instance; order matters");
+        } else {
+            System.out.println("✗ Combinations are not canonical");
+        }
+
+        Set<Coffee> instances = ConcurrentHashMap.newKeySet();
+        Thread[] orderThreads = new Thread[8];
+        for (int t = 0; t < orderThreads.length; t++) {
+            orderThreads[t] = new Thread(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    List<Topping> toppings = new ArrayList<>();
+                    for (int n = 0; n < 3; n++) {   // i % 8 picks one of 8 three-topping sequences
+                        toppings.add(((i >> n) & 1) == 0 ? Topping.MILK : Topping.SUGAR);
+                    }
+                    instances.add(menu.get(toppings));
+                }
+            });
+            orderThreads[t].start();
+        }
+        for (Thread thread : orderThreads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (instances.size() == 8) {
+            System.out.println("✓ 40,000 concurrent orders share 8 instances for 8 three-topping combinations");
+        } else {
+            System.out.println("✗ " + instances.size() + " instances for 8 combinations");
+        }
+
+        List<Topping> usual = List.of(Topping.MILK, Topping.MILK, Topping.SUGAR);
+        menu.get(usual);
+        long allocatedBefore = allocatedBytes();
+        double revenue = 0;
+        for (int i = 0; i < 1_000_000; i++) {
+            revenue += menu.get(usual).getCost();
+        }
+        long allocated = allocatedBytes() - allocatedBefore;
+        if (allocatedBefore < 0) {
+            System.out.println("Allocation counter not available on this JVM");
+        } else if (allocated < 64 * 1024) {
+            System.out.println("✓ 1,000,000 orders priced at $" + Math.round(revenue) + " allocated " + allocated + " bytes");
+        } else {
+            System.out.println("✗ Orders allocated " + allocated + " bytes");
+        }
+
+        // Test 12: Exact pricing in cents
+        System.out.println("\nTest 12: Exact cents pricing");
+        Coffee sweetLatte = new SugarDecorator(new MilkDecorator(new PlainCoffee()));
+        if (sweetLatte.getCostCents() == 280 && sweetLatte.compile().getCostCents() == 280
+                && menu.get(Topping.SUGAR, Topping.SUGAR, Topping.SUGAR).getCostCents() == 290) {
+            System.out.println("✓ Milk + sugar = " + CoffeePricing.format(sweetLatte.getCostCents()) + " exactly, chain and compiled");
+        } else {
+            System.out.println("✗ Cents price is wrong: " + sweetLatte.getCostCents());
+        }
+
+        Coffee whipped = new CoffeeDecorator(new MilkDecorator(new PlainCoffee())) {
+            public double getCost() {   // only the double price - no cents override
+                return coffee.getCost() + 0.70;
+            }
+        };
+        if (whipped.getCostCents() == 320 && whipped.compile().getCostCents() == 320
+                && new SugarDecorator(whipped).compile().getCostCents() == 350) {
+            System.out.println("✓ Decorator overriding only getCost() is priced at "
+                    + CoffeePricing.format(whipped.getCostCents()) + " on the cents path too");
+        } else {
+            System.out.println("✗ Whip over milk priced at " + whipped.getCostCents() + " cents, expected 320");
+        }
+
+        Coffee[] orders = new Coffee[1_000_000];
+        for (int i = 0; i < orders.length; i++) {
+            orders[i] = menu.get(i % 3 == 0 ? List.of(Topping.SUGAR) : List.of(Topping.MILK, Topping.SUGAR));
+        }
+        long exactTotal = CoffeePricing.totalCents(orders);
+        double doubleTotal = 0;
+        for (Coffee o : orders) {
+            doubleTotal += o.getCost();
+        }
+        long expectedCents = 333_334L * 230 + 666_666L * 280;
+        System.out.println("Double total: $" + doubleTotal + ", cents total: " + CoffeePricing.format(exactTotal));
+        if (exactTotal == expectedCents && doubleTotal != expectedCents / 100.0) {
+            System.out.println("✓ Cents total is exact where the double total drifts");
+        } else if (exactTotal == expectedCents) {
+            System.out.println("✓ Cents total is exact");
+        } else {
+            System.out.println("✗ Cents total " + exactTotal + ", expected " + expectedCents);
+        }
+
+        long[] prices = new long[orders.length];
+        for (int warmUp = 0; warmUp < 5; warmUp++) {
+            CoffeePricing.priceAll(orders, prices);
+        }
+        long pricingBefore = allocatedBytes();
+        start = System.nanoTime();
+        CoffeePricing.priceAll(orders, prices);
+        long batchMicros = (System.nanoTime() - start) / 1000;
+        long pricingAllocated = allocatedBytes() - pricingBefore;
+        System.out.println("Priced " + orders.length + " orders in " + batchMicros + " us");
+        if (prices[0] == 230 && prices[1] == 280 && (pricingBefore < 0 || pricingAllocated < 64 * 1024)) {
+            System.out.println("✓ Batch pricing fills the price array without allocating");
+        } else {
+            System.out.println("✗ Batch pricing allocated " + pricingAllocated + " bytes");
+        }
+        try {
+            CoffeePricing.totalCents(new Coffee[] {new PlainCoffee() {
+                public long getCostCents() {
+                    return Long.MAX_VALUE;
+                }
+            }, new PlainCoffee()});
+            System.out.println("✗ Overflow should be reported");
+        } catch (ArithmeticException e) {
+            System.out.println("✓ Overflowing totals throw instead of wrapping");
+        }
+
         System.out.println("\n=== Test Summary ===");
         System.out.println("Decorator Pattern verified:");
         System.out.println("- Objects can be decorated with additional functionality");
@@ -102,5 +284,16 @@ public class TestCoffeeDecorator {
         System.out.println("- Original object structure remains unchanged");
         System.out.println("- Polymorphic behavior works correctly");
         System.out.println("- Cost and description calculations work properly");
+        System.out.println("- Decorator chains compile into one immutable, precomputed coffee");
+        System.out.println("- Menu interns one shared coffee per topping sequence");
+        System.out.println("- Prices are carried exactly as long cents, with batch pricing");
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,140 @@
+package structural.flyweight;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+// Struct-of-arrays alternative to an array of FileSystemItem objects, for views with 100k+ items.
+//
+// Extrinsic state lives in parallel primitive arrays (xs, ys, iconIndex) instead of one object per
+// item, and each item points at its flyweight through a small int into a palette of distinct icons.
+// render() groups items by flyweight with a counting sort and makes one Icon.drawBatch() call per
+// group, so the per-item virtual draw(x, y) call - megamorphic across icon classes - disappears.
+class FileSystemItemBatch {
+    private String[] names;
+    private int[] xs;
+    private int[] ys;
+    private int[] iconIndex;
+    private int size;
+
+    // Distinct flyweights used by this batch; items refer to them by index
+    private Icon[] palette = new Icon[8];
+    private int paletteSize;
+    private final Map<Icon, Integer> paletteIndex = new IdentityHashMap<>();   // add path only
+
+    // Items regrouped by flyweight, rebuilt lazily after adds
+    private int[] groupedXs;
+    private int[] groupedYs;
+    private int[] groupStart;   // group g occupies [groupStart[g], groupStart[g + 1])
+    private boolean grouped;
+
+    public FileSystemItemBatch(int initialCapacity) {
+        int capacity = Math.max(1, initialCapacity);
+        names = new String[capacity];
+        xs = new int[capacity];
+        ys = new int[capacity];
+        iconIndex = new int[capacity];
+    }
+
+    // Copy existing context objects into columns
+    public static FileSystemItemBatch of(FileSystemItem[] items) {
+        FileSystemItemBatch batch = new FileSystemItemBatch(items.length);
+        for (FileSystemItem item : items) {
+            batch.add(item.getName(), item.getX(), item.getY(), item.getIcon());
+        }
+        return batch;
+    }
+
+    // Append an item and return its index
+    public int add(String name, int x, int y, Icon icon) {
+        if (size == xs.length) {
+            grow();
+        }
+        names[size] = name;
+        xs[size] = x;
+        ys[size] = y;
+        iconIndex[size] = indexOf(icon);
+        grouped = false;
+        return size++;
+    }
+
+    // Draw every item: one drawBatch() call per distinct flyweight
+    public void render() {
+        if (!grouped) {
+            group();
+        }
+        for (int g = 0; g < paletteSize; g++) {
+            if (groupStart[g] < groupStart[g + 1]) {
+                palette[g].drawBatch(groupedXs, groupedYs, groupStart[g], groupStart[g + 1]);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getFlyweightCount() {
+        return paletteSize;
+    }
+
+    public String getName(int index) {
+        return names[index];
+    }
+
+    public int getX(int index) {
+        return xs[index];
+    }
+
+    public int getY(int index) {
+        return ys[index];
+    }
+
+    public Icon getIcon(int index) {
+        return palette[iconIndex[index]];
+    }
+
+    private int indexOf(Icon icon) {
+        Integer index = paletteIndex.get(icon);
+        if (index != null) {
+            return index;
+        }
+        if (paletteSize == palette.length) {
+            palette = Arrays.copyOf(palette, paletteSize * 2);
+        }
+        palette[paletteSize] = icon;
+        paletteIndex.put(icon, paletteSize);
+        return paletteSize++;
+    }
+
+    // Counting sort by palette index - O(items + flyweights), stable within each group
+    private void group() {
+        groupStart = new int[paletteSize + 1];
+        for (int i = 0; i < size; i++) {
+            groupStart[iconIndex[i] + 1]++;
+        }
+        for (int g = 0; g < paletteSize; g++) {
+            groupStart[g + 1] += groupStart[g];
+        }
+
+        if (groupedXs == null || groupedXs.length < size) {
+            groupedXs = new int[size];
+            groupedYs = new int[size];
+        }
+        int[] next = Arrays.copyOf(groupStart, paletteSize);
+        for (int i = 0; i < size; i++) {
+            int slot = next[iconIndex[i]]++;
+            groupedXs[slot] = xs[i];
+            groupedYs[slot] = ys[i];
+        }
+        grouped = true;
+    }
+
+    private void grow() {
+        int capacity = xs.length * 2;
+        names = Arrays.copyOf(names, capacity);
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+        iconIndex = Arrays.copyOf(iconIndex, capacity);
+    }
+}
@@ -5,16 +5,43 @@ import java.util.*;
 // Flyweight interface - defines operations that can act on extrinsic state
 interface Icon {
     void draw(int x, int y);  // x, y are extrinsic state (context)
+
+    // Draw this flyweight at positions xs[from..to) / ys[from..to) in one call.
+    // Batch renderers call this once per flyweight instead of once per item.
+    default void drawBatch(int[] xs, int[] ys, int from, int to) {
+        for (int i = from; i < to; i++) {
+            draw(xs[i], ys[i]);
+        }
+    }
+
+    // Chars buffered before a batch is written out - big batches go out in chunks of this size
+    int BATCH_CHUNK_CHARS = 8192;
+
+    // Print one "<prefix>x, y<suffix>" line per position through a fixed-size buffer, so a batch of
+    // millions of rows never needs one giant string
+    static void printRows(String prefix, String suffix, int[] xs, int[] ys, int from, int to) {
+        StringBuilder out = new StringBuilder(BATCH_CHUNK_CHARS + prefix.length() + suffix.length() + 32);
+        for (int i = from; i < to; i++) {
+            out.append(prefix).append(xs[i]).append(", ").append(ys[i]).append(suffix).append('\n');
+            if (out.length() >= BATCH_CHUNK_CHARS) {
+                System.out.print(out);
+                out.setLength(0);
+            }
+        }
+        if (out.length() > 0) {
+            System.out.print(out);
+        }
+    }
 }
 
 // Concrete flyweight - file icon implementation
 class FileIcon implements Icon {
-    private String type;    // Intrinsic state - shared among all file icons of same type
-    private String image;   // Intrinsic state - image data shared
+    private String type;         // Intrinsic state - shared among all file icons of same type
+    private IconPayload image;   // Intrinsic state - image data shared
 
     public FileIcon(String type) {
         this.type = type;
-        this.image = "Image for " + type + " files";
+        this.image = IntrinsicPayloads.of("Image for " + type + " files");
         System.out.println("Creating flyweight for file type: " + type);
     }
 
@@ -22,19 +49,29 @@ class FileIcon implements Icon {
         System.out.println("Drawing " + type + " icon at position (" + x + ", " + y + ") using " + image);
     }
 
+    // Same output as draw(), written in a few large chunks instead of one println per row
+    public void drawBatch(int[] xs, int[] ys, int from, int to) {
+        // image resolved once per batch, not per row
+        Icon.printRows("Drawing " + type + " icon at position (", ") using " + image, xs, ys, from, to);
+    }
+
     public String getType() {
         return type;
     }
+
+    public IconPayload getImage() {
+        return image;
+    }
 }
 
 // Concrete flyweight - folder icon implementation
 class FolderIcon implements Icon {
-    private String color;   // Intrinsic state - shared among folders of same color
-    private String image;   // Intrinsic state - image data shared
+    private String color;        // Intrinsic state - shared among folders of same color
+    private IconPayload image;   // Intrinsic state - image data shared
 
     public FolderIcon(String color) {
         this.color = color;
-        this.image = "Folder image in " + color + " color";
+        this.image = IntrinsicPayloads.of("Folder image in " + color + " color");
         System.out.println("Creating flyweight for folder color: " + color);
     }
 
@@ -42,53 +79,94 @@ class FolderIcon implements Icon {
         System.out.println("Drawing " + color + " folder at position (" + x + ", " + y + ") using " + image);
     }
 
+    // Same output as draw(), written in a few large chunks instead of one println per row
+    public void drawBatch(int[] xs, int[] ys, int from, int to) {
+        // image resolved once per batch, not per row
+        Icon.printRows("Drawing " + color + " folder at position (", ") using " + image, xs, ys, from, to);
+    }
+
     public String getColor() {
         return color;
     }
+
+    public IconPayload getImage() {
+        return image;
+    }
 }
 
-// Flyweight factory - manages and reuses flyweight instances
+// Flyweight factory - manages and reuses flyweight instances.
+// Safe to call from many render threads: flyweights live in a bounded FlyweightCache, keyed by
+// interned IconType handles. Callers that resolve a handle once get the icon with a field read.
 class IconFactory {
-    private static Map<String, Icon> iconCache = new HashMap<>();
+    private static final int MAX_CACHED_ICONS = 1024;
+    private static final int MAX_INTERNED_TYPES = 4096;   // per kind - handles are never freed
 
-    // Get file icon flyweight - reuses existing ones
-    public static Icon getFileIcon(String fileType) {
-        String key = "FILE_" + fileType.toUpperCase();
-        Icon icon = iconCache.get(key);
-
-        if (icon == null) {
-            icon = new FileIcon(fileType);
-            iconCache.put(key, icon);
-            System.out.println("Created new flyweight for file type: " + fileType);
-        } else {
-            System.out.println("Reusing existing flyweight for file type: " + fileType);
+    private static final IconTypeRegistry fileTypes = new IconTypeRegistry(IconType.Kind.FILE, MAX_INTERNED_TYPES);
+    private static final IconTypeRegistry folderColors = new IconTypeRegistry(IconType.Kind.FOLDER, MAX_INTERNED_TYPES);
+
+    // Evicting an icon also clears it from its handle, so handles never pin evicted flyweights
+    private static final FlyweightCache<IconType, Icon> iconCache =
+            new FlyweightCache<>(MAX_CACHED_ICONS, IconType::evicted);
+
+    // Resolve a type handle once - the lookup is case-insensitive and allocation-free for known names
+    public static IconType fileType(String fileType) {
+        return fileTypes.intern(fileType);
+    }
+
+    public static IconType folderColor(String color) {
+        return folderColors.intern(color);
+    }
+
+    // Hot path: a field read when the flyweight is cached on the handle.
+    // The hit still sets the node's CLOCK bit, so icons used through handles are not evicted as cold,
+    // and is counted on the cache's striped counter, so the hit ratio covers handle lookups too.
+    public static Icon getIcon(IconType type) {
+        FlyweightCache.Node<IconType, Icon> node = type.cached;
+        if (node != null) {
+            node.touch();
+            iconCache.recordHit();
+            return node.value;
         }
+        // Not built yet or evicted - the cache builds it at most once
+        node = iconCache.getNode(type, IconType::createIcon);
+        // An eviction that ran between getNode() and publish() found the handle empty and cleared
+        // nothing - re-check membership after publishing so the handle never pins an evicted icon
+        if (type.publish(node) && !iconCache.contains(node)) {
+            type.unpublish(node);
+        }
+        return node.value;
+    }
 
-        return icon;
+    // Get file icon flyweight - reuses existing ones
+    public static Icon getFileIcon(String fileType) {
+        return getIcon(fileTypes.intern(fileType));
     }
 
     // Get folder icon flyweight - reuses existing ones
     public static Icon getFolderIcon(String color) {
-        String key = "FOLDER_" + color.toUpperCase();
-        Icon icon = iconCache.get(key);
-
-        if (icon == null) {
-            icon = new FolderIcon(color);
-            iconCache.put(key, icon);
-            System.out.println("Created new flyweight for folder color: " + color);
-        } else {
-            System.out.println("Reusing existing flyweight for folder color: " + color);
-        }
+        return getIcon(folderColors.intern(color));
+    }
 
-        return icon;
+    // Flyweights currently cached - e.g. for FlyweightFootprint.analyze()
+    public static List<Icon> cachedIcons() {
+        List<Icon> icons = new ArrayList<>();
+        iconCache.forEach((type, icon) -> icons.add(icon));
+        return icons;
     }
 
     // Get cache statistics
     public static void displayCacheStats() {
         System.out.println("IconFactory cache contains " + iconCache.size() + " flyweight objects");
-        for (String key : iconCache.keySet()) {
-            System.out.println("  Cached: " + key);
+        for (IconType type : iconCache.keys()) {
+            System.out.println("  Cached: " + type);
         }
+        System.out.println(String.format("  Hits: %d, misses: %d, hit ratio: %.2f, evictions: %d, interned types: %d",
+                iconCache.getHits(), iconCache.getMisses(), iconCache.getHitRatio(), iconCache.getEvictions(),
+                fileTypes.size() + folderColors.size()));
+    }
+
+    public static long getCacheHits() {
+        return iconCache.getHits();
     }
 }
 
@@ -113,4 +191,16 @@ class FileSystemItem {
     public String getName() {
         return name;
     }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public Icon getIcon() {
+        return icon;
+    }
 }
@@ -0,0 +1,153 @@
+package structural.flyweight;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+// Thread-safe, size-bounded store for flyweights.
+//
+// Lookups are a ConcurrentHashMap read plus one flag write - no locks and no allocation on a hit.
+// A missing entry is built inside computeIfAbsent, so concurrent callers asking for the same key
+// wait for one construction instead of each building their own flyweight.
+// When the cache grows past its bound, entries are evicted with CLOCK (second chance), a cheap
+// approximation of LRU: every hit sets a "referenced" bit, and the eviction hand clears the bit
+// of referenced entries and evicts the first entry it finds without one.
+class FlyweightCache<K, V> {
+    private final int maxSize;
+    private final BiConsumer<? super K, ? super V> onEvict;
+    private final ConcurrentHashMap<K, Node<K, V>> map = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Node<K, V>> clock = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();   // one sweeper at a time, never on hits
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public FlyweightCache(int maxSize) {
+        this(maxSize, (key, value) -> { });
+    }
+
+    // onEvict lets callers drop their own references to an evicted flyweight
+    public FlyweightCache(int maxSize, BiConsumer<? super K, ? super V> onEvict) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Max size must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.onEvict = onEvict;
+    }
+
+    // Cached flyweight for the key, built with the loader on first use
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        return getNode(key, loader).value;
+    }
+
+    // Same as get(), but returns the cache node so a caller can keep it and touch() it on later
+    // hits that skip the map - the CLOCK hand then still sees those hits
+    Node<K, V> getNode(K key, Function<? super K, ? extends V> loader) {
+        Node<K, V> node = map.get(key);
+        if (node != null) {
+            node.touch();
+            hits.increment();
+            return node;
+        }
+
+        node = map.computeIfAbsent(key, k -> {
+            misses.increment();
+            Node<K, V> created = new Node<>(k, loader.apply(k));
+            clock.add(created);
+            return created;
+        });
+        if (map.size() > maxSize) {
+            evict();
+        }
+        return node;
+    }
+
+    // Count a hit served from a kept node without going through the map
+    void recordHit() {
+        hits.increment();
+    }
+
+    // Whether this node is still the cached one for its key, i.e. has not been evicted
+    boolean contains(Node<K, V> node) {
+        return map.get(node.key) == node;
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum();
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+
+    public Iterable<K> keys() {
+        return map.keySet();
+    }
+
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        map.forEach((key, node) -> action.accept(key, node.value));
+    }
+
+    private void evict() {
+        if (!evictionLock.tryLock()) {
+            return;  // another thread is already sweeping
+        }
+        try {
+            while (map.size() > maxSize) {
+                Node<K, V> node = clock.poll();
+                if (node == null) {
+                    return;
+                }
+                if (node.referenced) {
+                    node.referenced = false;  // second chance
+                    clock.add(node);
+                } else if (map.remove(node.key, node)) {
+                    evictions.increment();
+                    onEvict.accept(node.key, node.value);
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    static final class Node<K, V> {
+        final K key;
+        final V value;
+        volatile boolean referenced;
+
+        Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        // Only write when the bit is clear, so hot entries don't keep dirtying a shared cache line
+        void touch() {
+            if (!referenced) {
+                referenced = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package structural.flyweight;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+// Estimates where the bytes of a flyweight view go.
+//
+// Sizes follow the 64-bit HotSpot layout with compressed oops: 12-byte object headers, 4-byte
+// references, 16-byte array headers, Latin-1 compact strings, everything padded to 8 bytes.
+// These are estimates of retained size, not measurements - good enough to compare designs and to
+// project whether a view of N items fits a heap budget.
+class FlyweightFootprint {
+    static final int OBJECT_HEADER = 12;
+    static final int ARRAY_HEADER = 16;
+    static final int REFERENCE = 4;
+    static final int INT = 4;
+
+    static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    static long byteArrayBytes(int length) {
+        return align(ARRAY_HEADER + length);
+    }
+
+    // String object (hash, coder, hashIsZero, value) plus its backing byte[]
+    static long stringBytes(String s) {
+        long self = align(OBJECT_HEADER + INT + 1 + 1 + REFERENCE);
+        boolean latin1 = true;
+        for (int i = 0; i < s.length() && latin1; i++) {
+            latin1 = s.charAt(i) <= 0xFF;
+        }
+        return self + byteArrayBytes(latin1 ? s.length() : s.length() * 2);
+    }
+
+    // Flyweight object plus its intrinsic state; anything already in 'counted' is shared and skipped
+    static long flyweightBytes(Icon icon, Set<Object> counted) {
+        if (!counted.add(icon)) {
+            return 0;
+        }
+        long bytes = align(OBJECT_HEADER + 2 * REFERENCE);
+        if (icon instanceof FileIcon) {
+            bytes += shared(((FileIcon) icon).getType(), counted) + shared(((FileIcon) icon).getImage(), counted);
+        } else if (icon instanceof FolderIcon) {
+            bytes += shared(((FolderIcon) icon).getColor(), counted) + shared(((FolderIcon) icon).getImage(), counted);
+        } else if (icon instanceof OffHeapIcon) {
+            // name, arena reference, offset, length - the payload itself is off-heap
+            bytes = align(OBJECT_HEADER + 2 * REFERENCE + 2 * INT) + shared(((OffHeapIcon) icon).getName(), counted);
+        }
+        return bytes;
+    }
+
+    // One context object: name reference, x, y, icon reference - plus its own name string.
+    // The flyweight it points at is shared and accounted for separately.
+    static long itemBytes(FileSystemItem item) {
+        return align(OBJECT_HEADER + 2 * REFERENCE + 2 * INT) + stringBytes(item.getName());
+    }
+
+    // One row of a FileSystemItemBatch: name reference + x + y + palette index, plus the name string
+    static long batchRowBytes(String name) {
+        return REFERENCE + 3 * INT + stringBytes(name);
+    }
+
+    public static Report analyze(Iterable<Icon> flyweights, FileSystemItem[] items) {
+        Set<Object> counted = Collections.newSetFromMap(new IdentityHashMap<>());
+        Map<String, Long> perFlyweight = new LinkedHashMap<>();
+        long flyweightTotal = 0;
+        for (Icon icon : flyweights) {
+            long bytes = flyweightBytes(icon, counted);
+            perFlyweight.put(describe(icon), bytes);
+            flyweightTotal += bytes;
+        }
+
+        long itemTotal = 0;
+        long batchTotal = 0;
+        for (FileSystemItem item : items) {
+            itemTotal += itemBytes(item);
+            batchTotal += batchRowBytes(item.getName());
+        }
+        return new Report(perFlyweight, flyweightTotal, items.length, itemTotal, batchTotal);
+    }
+
+    private static long shared(Object intrinsic, Set<Object> counted) {
+        if (intrinsic == null || !counted.add(intrinsic)) {
+            return 0;  // shared with a flyweight already counted
+        }
+        if (intrinsic instanceof String) {
+            return stringBytes((String) intrinsic);
+        }
+        return ((IconPayload) intrinsic).retainedBytes();
+    }
+
+    private static String describe(Icon icon) {
+        if (icon instanceof FileIcon) {
+            return "FileIcon " + ((FileIcon) icon).getType();
+        }
+        if (icon instanceof FolderIcon) {
+            return "FolderIcon " + ((FolderIcon) icon).getColor();
+        }
+        if (icon instanceof OffHeapIcon) {
+            return "OffHeapIcon " + ((OffHeapIcon) icon).getName() + " (+" + ((OffHeapIcon) icon).getLength() + " bytes off-heap)";
+        }
+        return icon.getClass().getSimpleName();
+    }
+
+    // Result of one analysis
+    static class Report {
+        private final Map<String, Long> perFlyweight;
+        private final long flyweightBytes;
+        private final int itemCount;
+        private final long itemBytes;
+        private final long batchBytes;
+
+        Report(Map<String, Long> perFlyweight, long flyweightBytes, int itemCount, long itemBytes, long batchBytes) {
+            this.perFlyweight = perFlyweight;
+            this.flyweightBytes = flyweightBytes;
+            this.itemCount = itemCount;
+            this.itemBytes = itemBytes;
+            this.batchBytes = batchBytes;
+        }
+
+        public long getFlyweightBytes() {
+            return flyweightBytes;
+        }
+
+        public long getItemBytes() {
+            return itemBytes;
+        }
+
+        public double getBytesPerItem() {
+            return itemCount == 0 ? 0 : (double) itemBytes / itemCount;
+        }
+
+        public double getBatchBytesPerItem() {
+            return itemCount == 0 ? 0 : (double) batchBytes / itemCount;
+        }
+
+        // Projected heap for a view of 'items' items with the same average shape
+        public long projectBytes(long items) {
+            return flyweightBytes + (long) Math.ceil(getBytesPerItem() * items);
+        }
+
+        public boolean fitsBudget(long items, long budgetBytes) {
+            return projectBytes(items) <= budgetBytes;
+        }
+
+        public void print() {
+            System.out.println("Flyweight footprint (estimated, 64-bit compressed oops):");
+            for (Map.Entry<String, Long> entry : perFlyweight.entrySet()) {
+                System.out.println("  " + entry.getKey() + ": " + entry.getValue() + " bytes");
+            }
+            System.out.println("  Flyweights total: " + flyweightBytes + " bytes");
+            System.out.println(String.format("  %d items: %d bytes (%.1f bytes/item as objects, %.1f as batch rows)",
+                    itemCount, itemBytes, getBytesPerItem(), getBatchBytesPerItem()));
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package structural.flyweight;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.util.WeakHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Intrinsic payload of a flyweight (the icon's image data).
+// Stored either as plain text or, when that is smaller, deflate-compressed and inflated on use.
+// The inflated text is kept behind a SoftReference, so drawing inflates once rather than per row,
+// and the GC can still drop it back to the compressed form under memory pressure.
+// Equality is by content, so identical payloads can be collapsed into one shared instance.
+final class IconPayload {
+    private final String text;        // null when stored compressed
+    private final byte[] deflated;    // null when stored plain
+    private final int hash;
+    private volatile SoftReference<String> inflated;   // cache for compressed payloads - not counted as retained
+
+    private IconPayload(String text, byte[] deflated, int hash) {
+        this.text = text;
+        this.deflated = deflated;
+        this.hash = hash;
+    }
+
+    static IconPayload plain(String text) {
+        return new IconPayload(text, null, text.hashCode());
+    }
+
+    // Compressed form if it actually saves space, plain otherwise
+    static IconPayload compressed(String text) {
+        byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 16);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            byte[] deflated = out.toByteArray();
+            return deflated.length < raw.length
+                    ? new IconPayload(null, deflated, text.hashCode())
+                    : plain(text);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public boolean isCompressed() {
+        return deflated != null;
+    }
+
+    public String text() {
+        if (text != null) {
+            return text;
+        }
+        SoftReference<String> cached = inflated;
+        String value = cached != null ? cached.get() : null;
+        if (value == null) {
+            value = inflate();   // racing threads may both inflate - harmless, the content is equal
+            inflated = new SoftReference<>(value);
+        }
+        return value;
+    }
+
+    // Estimated heap bytes this payload retains (see FlyweightFootprint for the layout assumptions)
+    public long retainedBytes() {
+        long self = FlyweightFootprint.align(FlyweightFootprint.OBJECT_HEADER + 2 * FlyweightFootprint.REFERENCE + 4);
+        return self + (text != null ? FlyweightFootprint.stringBytes(text) : FlyweightFootprint.byteArrayBytes(deflated.length));
+    }
+
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof IconPayload)) {
+            return false;
+        }
+        IconPayload that = (IconPayload) other;
+        return hash == that.hash && text().equals(that.text());
+    }
+
+    public int hashCode() {
+        return hash;
+    }
+
+    public String toString() {
+        return text();
+    }
+
+    private String inflate() {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(deflated);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(deflated.length * 4);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && inflater.needsInput()) {
+                    throw new IllegalStateException("Truncated icon payload");
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toString(StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt icon payload", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
+
+// Factory for intrinsic payloads - off by default, so flyweights keep their own plain payloads.
+// With sharing on, payloads with equal content collapse into one instance across all icon kinds,
+// and payloads of at least compressThreshold chars are stored compressed.
+// The intern table holds its payloads weakly: once no flyweight uses a payload (e.g. its icon was
+// evicted from the cache) the entry goes away with it, so the table never outgrows the live icons.
+class IntrinsicPayloads {
+    private static final WeakHashMap<IconPayload, WeakReference<IconPayload>> shared = new WeakHashMap<>();
+    private static volatile boolean sharing;
+    private static volatile int compressThreshold = 256;
+
+    public static IconPayload of(String text) {
+        if (!sharing) {
+            return IconPayload.plain(text);
+        }
+        IconPayload candidate = text.length() >= compressThreshold
+                ? IconPayload.compressed(text)
+                : IconPayload.plain(text);
+        // Only called when a flyweight is built, so one lock is cheap enough
+        synchronized (shared) {
+            WeakReference<IconPayload> ref = shared.get(candidate);
+            IconPayload existing = ref != null ? ref.get() : null;
+            if (existing != null) {
+                return existing;
+            }
+            shared.put(candidate, new WeakReference<>(candidate));
+            return candidate;
+        }
+    }
+
+    // Forget every shared payload; flyweights keep theirs, new ones are interned afresh
+    public static void clear() {
+        synchronized (shared) {
+            shared.clear();
+        }
+    }
+
+    public static void setSharing(boolean enabled) {
+        sharing = enabled;
+    }
+
+    // Payloads shorter than this stay plain - deflate overhead outweighs the gain on tiny payloads
+    public static void setCompressThreshold(int chars) {
+        compressThreshold = chars;
+    }
+
+    public static int sharedCount() {
+        synchronized (shared) {
+            return shared.size();
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package structural.flyweight;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+// Interned handle for one icon type - a kind plus a case-insensitive name.
+// Resolve it once (IconFactory.fileType("pdf")), then IconFactory.getIcon(type) is a field read.
+// Handles are compared by identity; every id is small and dense, so renderers can index arrays by it.
+final class IconType {
+    enum Kind { FILE, FOLDER }
+
+    private static final AtomicInteger nextId = new AtomicInteger();
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<IconType, FlyweightCache.Node> CACHED =
+            AtomicReferenceFieldUpdater.newUpdater(IconType.class, FlyweightCache.Node.class, "cached");
+
+    private final Kind kind;
+    private final String name;    // canonical name: name.toUpperCase(Locale.ROOT)
+    private final int id;
+    final int hash;               // hash of the canonical name
+
+    // Cache node of the flyweight currently cached for this type - cleared when the icon cache evicts it.
+    // Only set and cleared with a CAS, so a late publish can never overwrite an eviction's clear.
+    volatile FlyweightCache.Node<IconType, Icon> cached;
+
+    IconType(Kind kind, String name) {
+        this.kind = kind;
+        this.name = canonical(name);
+        this.id = nextId.getAndIncrement();
+        this.hash = canonicalHash(this.name);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    // Publish a node only if the handle is empty
+    boolean publish(FlyweightCache.Node<IconType, Icon> node) {
+        return CACHED.compareAndSet(this, null, node);
+    }
+
+    // Clear the handle only if it still holds this node
+    void unpublish(FlyweightCache.Node<IconType, Icon> node) {
+        CACHED.compareAndSet(this, node, null);
+    }
+
+    // Clear the handle if it still holds the evicted flyweight
+    void evicted(Icon icon) {
+        FlyweightCache.Node<IconType, Icon> node = cached;
+        if (node != null && node.value == icon) {
+            unpublish(node);
+        }
+    }
+
+    Icon createIcon() {
+        return kind == Kind.FILE ? new FileIcon(name) : new FolderIcon(name);
+    }
+
+    public String toString() {
+        return kind + "_" + name;
+    }
+
+    // Names are compared by their Locale.ROOT upper-case form, so "straße", "STRASSE" and "Strasse"
+    // are one type. String.toUpperCase can change the length ("ß" -> "SS"), so the in-place helpers
+    // below only take the ASCII fast path; other names are upper-cased into a copy first.
+    static String canonical(String name) {
+        return name.toUpperCase(Locale.ROOT);
+    }
+
+    static boolean isAscii(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Hash of canonical(name) for an ASCII name, computed char by char - no upper-case copy
+    static int asciiHash(String name) {
+        int h = 0;
+        for (int i = 0; i < name.length(); i++) {
+            h = 31 * h + asciiUpper(name.charAt(i));
+        }
+        return h;
+    }
+
+    static int canonicalHash(String canonical) {
+        int h = 0;
+        for (int i = 0; i < canonical.length(); i++) {
+            h = 31 * h + canonical.charAt(i);
+        }
+        return h;
+    }
+
+    // canonical(name).equals(this.name) for an ASCII name, without the copy
+    boolean matchesAscii(String name) {
+        if (name.length() != this.name.length()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (asciiUpper(name.charAt(i)) != this.name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static char asciiUpper(char c) {
+        return c >= 'a' && c <= 'z' ? (char) (c - ('a' - 'A')) : c;
+    }
+}
+
+// Case-insensitive intern table for IconType handles of one kind.
+//
+// Open addressing over a plain array: a lookup hashes the name in place and compares it against the
+// stored upper-case name, so resolving a known ASCII name allocates nothing. Reads take no lock;
+// inserts are rare (one per distinct type) and synchronized. Entries are never removed, so a reader
+// can never miss an entry by probing past a deleted slot.
+// Names often come from outside (file extensions in a listing), so the table is bounded: once it
+// holds maxTypes handles, unknown names resolve to one shared OTHER handle - a generic icon.
+class IconTypeRegistry {
+    static final String OTHER = "OTHER";
+
+    private final IconType.Kind kind;
+    private final int maxTypes;
+    private final IconType other;
+    private volatile IconType[] table = new IconType[16];
+    private int size;   // guarded by this
+
+    IconTypeRegistry(IconType.Kind kind, int maxTypes) {
+        if (maxTypes < 1) {
+            throw new IllegalArgumentException("Max types must be positive: " + maxTypes);
+        }
+        this.kind = kind;
+        this.maxTypes = maxTypes;
+        this.other = insert(OTHER);
+    }
+
+    // Handle for the name, created on first use; OTHER once the table is full
+    public IconType intern(String name) {
+        IconType type = find(name);
+        return type != null ? type : insert(name);
+    }
+
+    // Handle for the name, or null if it was never interned
+    public IconType find(String name) {
+        if (!IconType.isAscii(name)) {
+            return findCanonical(IconType.canonical(name));   // rare - may change length, needs a copy
+        }
+        int hash = IconType.asciiHash(name);
+        IconType[] tab = table;
+        int mask = tab.length - 1;
+        for (int i = spread(hash) & mask; ; i = (i + 1) & mask) {
+            IconType type = tab[i];
+            if (type == null) {
+                return null;
+            }
+            if (type.hash == hash && type.matchesAscii(name)) {
+                return type;
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int getMaxTypes() {
+        return maxTypes;
+    }
+
+    private IconType findCanonical(String canonical) {
+        int hash = IconType.canonicalHash(canonical);
+        IconType[] tab = table;
+        int mask = tab.length - 1;
+        for (int i = spread(hash) & mask; ; i = (i + 1) & mask) {
+            IconType type = tab[i];
+            if (type == null) {
+                return null;
+            }
+            if (type.hash == hash && type.getName().equals(canonical)) {
+                return type;
+            }
+        }
+    }
+
+    private synchronized IconType insert(String name) {
+        IconType existing = find(name);
+        if (existing != null) {
+            return existing;  // another thread interned it first
+        }
+        if (size >= maxTypes) {
+            return other;
+        }
+        IconType[] tab = table;
+        if ((size + 1) * 2 > tab.length) {
+            tab = resize(tab);   // keep the load factor under 0.5 so probes stay short
+        }
+        IconType type = new IconType(kind, name);
+        place(tab, type);
+        size++;
+        table = tab;   // volatile write publishes the new slot (and a resized table)
+        return type;
+    }
+
+    private static IconType[] resize(IconType[] old) {
+        IconType[] tab = new IconType[old.length * 2];
+        for (IconType type : old) {
+            if (type != null) {
+                place(tab, type);
+            }
+        }
+        return tab;
+    }
+
+    private static void place(IconType[] tab, IconType type) {
+        int mask = tab.length - 1;
+        int i = spread(type.hash) & mask;
+        while (tab[i] != null) {
+            i = (i + 1) & mask;
+        }
+        tab[i] = type;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,205 @@
+package structural.flyweight;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// Flyweight whose intrinsic payload lives outside the Java heap.
+// The object itself is just a name plus an offset and length into the pack's shared arena,
+// so the garbage collector never has to trace or copy the (potentially large) bitmap.
+class OffHeapIcon implements Icon {
+    private final String name;
+    private final ByteBuffer arena;   // shared, read-only - only absolute reads, never its position
+    private final int offset;
+    private final int length;
+
+    OffHeapIcon(String name, ByteBuffer arena, int offset, int length) {
+        this.name = name;
+        this.arena = arena;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public void draw(int x, int y) {
+        System.out.println("Drawing " + name + " icon at position (" + x + ", " + y + ") using "
+                + length + " bytes off-heap");
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    // Zero-copy view of the payload - an independent buffer, safe to hand to another thread
+    public ByteBuffer payload() {
+        return arena.slice(offset, length);
+    }
+
+    // Copy the payload onto the heap, e.g. for a decoder that needs a byte[]
+    public byte[] copyPayload() {
+        byte[] bytes = new byte[length];
+        arena.get(offset, bytes);
+        return bytes;
+    }
+}
+
+// A set of icons whose payloads share one off-heap arena.
+//
+// Pack file layout (big-endian):
+//   int magic, int count,
+//   count x { short nameLength, byte[nameLength] name (UTF-8), int offset, int length },
+//   payload bytes (offsets are relative to the start of the file)
+// open() memory-maps the file and reads only the index, so loading a pack costs one mmap call
+// plus one small object per icon no matter how large the bitmaps are; the OS pages payloads in
+// on first use.
+class OffHeapIconPack {
+    private static final int MAGIC = 0x49434E50;   // "ICNP"
+
+    private final Map<String, OffHeapIcon> icons;
+
+    private OffHeapIconPack(Map<String, OffHeapIcon> icons) {
+        this.icons = icons;
+    }
+
+    // Map a pack file read-only; the mapping stays valid after the channel is closed.
+    // A truncated or corrupt index fails with an IOException naming the file.
+    public static OffHeapIconPack open(Path file) throws IOException {
+        ByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + " is larger than 2 GB, not an icon pack");
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            return fromArena(mapped);
+        } catch (IOException e) {
+            throw new IOException(file + ": " + e.getMessage(), e);
+        }
+    }
+
+    // Same layout in a direct (off-heap, not file-backed) buffer - for packs built at runtime
+    public static OffHeapIconPack fromPayloads(Map<String, byte[]> payloads) {
+        ByteBuffer arena = ByteBuffer.allocateDirect(packSize(payloads));
+        encode(payloads, arena);
+        try {
+            return fromArena(arena.flip());
+        } catch (IOException e) {
+            throw new IllegalStateException("Encoded an unreadable icon pack", e);   // encode() and fromArena() disagree
+        }
+    }
+
+    // Write a pack file that open() can map
+    public static void write(Path file, Map<String, byte[]> payloads) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(packSize(payloads));
+        encode(payloads, buffer);
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    // Icon by case-insensitive name, or null if the pack does not contain it
+    public Icon getIcon(String name) {
+        return icons.get(name.toUpperCase(Locale.ROOT));
+    }
+
+    public Collection<OffHeapIcon> icons() {
+        return icons.values();
+    }
+
+    public long payloadBytes() {
+        long total = 0;
+        for (OffHeapIcon icon : icons.values()) {
+            total += icon.getLength();
+        }
+        return total;
+    }
+
+    // Every length and offset read from the index is checked against the arena before use
+    private static OffHeapIconPack fromArena(ByteBuffer mapped) throws IOException {
+        ByteBuffer arena = mapped.asReadOnlyBuffer();
+        int limit = arena.limit();
+        if (limit < 8 || arena.getInt(0) != MAGIC) {
+            throw new IOException("Not an icon pack");
+        }
+        int count = arena.getInt(4);
+        if (count < 0 || count > (limit - 8) / 10) {   // every entry takes at least 10 bytes
+            throw new IOException("Corrupt icon pack: bad icon count " + count);
+        }
+        Map<String, OffHeapIcon> icons = new LinkedHashMap<>();
+        int position = 8;
+        for (int i = 0; i < count; i++) {
+            if (position > limit - 10) {
+                throw new IOException("Corrupt icon pack: entry " + i + " is truncated");
+            }
+            int nameLength = arena.getShort(position);
+            if (nameLength < 0 || nameLength > limit - 10 - position) {
+                throw new IOException("Corrupt icon pack: entry " + i + " has name length " + nameLength);
+            }
+            byte[] nameBytes = new byte[nameLength];
+            arena.get(position + 2, nameBytes);
+            String name = new String(nameBytes, StandardCharsets.UTF_8);
+            int offset = arena.getInt(position + 2 + nameLength);
+            int length = arena.getInt(position + 6 + nameLength);
+            if (offset < 0 || length < 0 || offset > limit - length) {
+                throw new IOException("Corrupt icon pack: icon " + name + " (offset " + offset + ", length "
+                        + length + ") points outside the " + limit + "-byte pack");
+            }
+            icons.put(name, new OffHeapIcon(name, arena, offset, length));
+            position += 10 + nameLength;
+        }
+        return new OffHeapIconPack(Collections.unmodifiableMap(icons));
+    }
+
+    private static int packSize(Map<String, byte[]> payloads) {
+        long size = 8;
+        for (Map.Entry<String, byte[]> entry : payloads.entrySet()) {
+            size += 10 + canonicalName(entry.getKey()).length + entry.getValue().length;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Icon pack larger than 2 GB");
+        }
+        return (int) size;
+    }
+
+    private static void encode(Map<String, byte[]> payloads, ByteBuffer out) {
+        int payloadOffset = 8;
+        for (String name : payloads.keySet()) {
+            payloadOffset += 10 + canonicalName(name).length;
+        }
+
+        out.putInt(MAGIC).putInt(payloads.size());
+        int offset = payloadOffset;
+        for (Map.Entry<String, byte[]> entry : payloads.entrySet()) {
+            byte[] name = canonicalName(entry.getKey());
+            out.putShort((short) name.length).put(name).putInt(offset).putInt(entry.getValue().length);
+            offset += entry.getValue().length;
+        }
+        for (byte[] payload : payloads.values()) {
+            out.put(payload);
+        }
+    }
+
+    private static byte[] canonicalName(String name) {
+        byte[] bytes = name.toUpperCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Icon name too long: " + name);
+        }
+        return bytes;
+    }
+}
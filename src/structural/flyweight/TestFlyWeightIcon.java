@@ -1,5 +1,21 @@
 package structural.flyweight;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
 public class TestFlyWeightIcon {
     public static void main(String[] args) {
         System.out.println("=== Testing Flyweight Pattern ===\n");
@@ -130,6 +146,281 @@ public class TestFlyWeightIcon {
         pdf2.display();
         pdf3.display();
 
+        // Test 9: Concurrent lookups build each flyweight once
+        System.out.println("\nTest 9: Concurrent lookups of a new icon type");
+        Set<Icon> seen = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] renderers = new Thread[16];
+        for (int t = 0; t < renderers.length; t++) {
+            renderers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < 10_000; i++) {
+                    seen.add(IconFactory.getFileIcon("SVG"));
+                }
+            });
+            renderers[t].start();
+        }
+        start.countDown();
+        for (Thread renderer : renderers) {
+            try {
+                renderer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (seen.size() == 1) {
+            System.out.println("✓ 16 threads x 10,000 lookups shared a single SVG flyweight");
+        } else {
+            System.out.println("✗ " + seen.size() + " SVG flyweights were created");
+        }
+        IconFactory.displayCacheStats();
+
+        // Test 10: Bounded cache evicts cold entries and keeps hot ones
+        System.out.println("\nTest 10: Bounded flyweight cache with CLOCK eviction");
+        FlyweightCache<String, Icon> boundedCache = new FlyweightCache<>(3);
+        Icon hotIcon = boundedCache.get("HOT", FileIcon::new);
+        boundedCache.get("COLD1", FileIcon::new);
+        boundedCache.get("COLD2", FileIcon::new);
+        boundedCache.get("HOT", FileIcon::new);   // marks HOT as recently used
+        boundedCache.get("NEW", FileIcon::new);   // over the bound - a cold entry is evicted
+
+        if (boundedCache.size() <= boundedCache.getMaxSize() && boundedCache.get("HOT", FileIcon::new) == hotIcon) {
+            System.out.println("✓ Cache stayed at " + boundedCache.size() + " entries and kept the hot flyweight");
+        } else {
+            System.out.println("✗ Bounded cache lost the hot entry or grew past its bound");
+        }
+        System.out.println("Hits: " + boundedCache.getHits() + ", misses: " + boundedCache.getMisses()
+                + ", evictions: " + boundedCache.getEvictions());
+
+        // Test 11: Pre-resolved handles and allocation-free lookups
+        System.out.println("\nTest 11: Interned icon type handles");
+        IconType pdfType = IconFactory.fileType("pdf");
+        if (IconFactory.fileType("PDF") == pdfType && IconFactory.fileType("Pdf") == pdfType
+                && IconFactory.getIcon(pdfType) == IconFactory.getFileIcon("pdf")) {
+            System.out.println("✓ One handle per type regardless of case: " + pdfType + " (id " + pdfType.getId() + ")");
+        } else {
+            System.out.println("✗ Handles are not interned case-insensitively");
+        }
+
+        String mixedCase = "Pdf";
+        long allocatedBefore = allocatedBytes();
+        for (int i = 0; i < 1_000_000; i++) {
+            IconFactory.getIcon(pdfType);         // field read
+            IconFactory.getFileIcon(mixedCase);   // case-insensitive hash + probe, no upper-case copy
+        }
+        long allocated = allocatedBytes() - allocatedBefore;
+        if (allocatedBefore < 0) {
+            System.out.println("Allocation counter not available on this JVM");
+        } else if (allocated < 64 * 1024) {
+            System.out.println("✓ 2,000,000 lookups allocated " + allocated + " bytes");
+        } else {
+            System.out.println("✗ Lookups allocated " + allocated + " bytes");
+        }
+
+        // Test 12: Batch rendering with struct-of-arrays extrinsic state
+        System.out.println("\nTest 12: Batch rendering groups items by flyweight");
+        FileSystemItemBatch smallBatch = FileSystemItemBatch.of(Arrays.copyOf(items, 6));
+        System.out.println("Rendering 6 items with " + smallBatch.getFlyweightCount() + " drawBatch calls:");
+        smallBatch.render();
+
+        CountingIcon[] countingIcons = {new CountingIcon(), new CountingIcon(), new CountingIcon()};
+        FileSystemItemBatch largeBatch = new FileSystemItemBatch(16);
+        for (int i = 0; i < 100_000; i++) {
+            largeBatch.add("item_" + i, i % 1920, i / 1920, countingIcons[i % countingIcons.length]);
+        }
+        largeBatch.render();
+
+        int batchCalls = 0;
+        int itemsDrawn = 0;
+        for (CountingIcon icon : countingIcons) {
+            batchCalls += icon.batchCalls;
+            itemsDrawn += icon.itemsDrawn;
+        }
+        if (batchCalls == countingIcons.length && itemsDrawn == largeBatch.size()) {
+            System.out.println("✓ " + itemsDrawn + " items drawn with " + batchCalls + " drawBatch calls");
+        } else {
+            System.out.println("✗ " + batchCalls + " batch calls drew " + itemsDrawn + " items");
+        }
+
+        // Chunked batch output is byte-for-byte what one draw() per row prints
+        int rows = 1000;   // well past one chunk
+        int[] rowXs = new int[rows];
+        int[] rowYs = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            rowXs[i] = i;
+            rowYs[i] = rows - i;
+        }
+        Icon rowIcon = IconFactory.getFileIcon("txt");
+        PrintStream console = System.out;
+        ByteArrayOutputStream perRow = new ByteArrayOutputStream();
+        ByteArrayOutputStream chunked = new ByteArrayOutputStream();
+        try {
+            System.setOut(new PrintStream(perRow, true));
+            for (int i = 0; i < rows; i++) {
+                rowIcon.draw(rowXs[i], rowYs[i]);
+            }
+            System.setOut(new PrintStream(chunked, true));
+            rowIcon.drawBatch(rowXs, rowYs, 0, rows);
+        } finally {
+            System.setOut(console);
+        }
+        if (chunked.size() > Icon.BATCH_CHUNK_CHARS && Arrays.equals(chunked.toByteArray(), perRow.toByteArray())) {
+            System.out.println("✓ " + chunked.size() + " bytes of batch output written in chunks, identical to per-row draw()");
+        } else {
+            System.out.println("✗ Chunked batch output differs from per-row draw()");
+        }
+
+        // Test 13: Memory footprint report and heap budget projection
+        System.out.println("\nTest 13: Memory footprint of the flyweight view");
+        FlyweightFootprint.Report report = FlyweightFootprint.analyze(IconFactory.cachedIcons(), items);
+        report.print();
+        long budget = 128L * 1024 * 1024;
+        long projected = report.projectBytes(1_000_000);
+        System.out.println("Projected for 1,000,000 items: " + projected / 1024 + " KB");
+        if (report.fitsBudget(1_000_000, budget)) {
+            System.out.println("✓ A million-item view fits a " + budget / (1024 * 1024) + " MB heap budget");
+        } else {
+            System.out.println("✗ A million-item view exceeds the " + budget / (1024 * 1024) + " MB budget");
+        }
+
+        // Test 14: Deduplicated, compressed intrinsic payloads
+        System.out.println("\nTest 14: Intrinsic payload sharing and compression");
+        IntrinsicPayloads.setSharing(true);
+        StringBuilder bitmap = new StringBuilder();
+        for (int row = 0; row < 64; row++) {
+            bitmap.append("................................................................\n");
+        }
+        IconPayload first = IntrinsicPayloads.of(bitmap.toString());
+        IconPayload second = IntrinsicPayloads.of(new String(bitmap));  // equal content, separate string
+        if (first == second) {
+            System.out.println("✓ Equal payloads collapsed into one shared instance");
+        } else {
+            System.out.println("✗ Equal payloads were not shared");
+        }
+        long plainBytes = IconPayload.plain(bitmap.toString()).retainedBytes();
+        if (first.isCompressed() && first.retainedBytes() < plainBytes && first.text().contentEquals(bitmap)) {
+            System.out.println("✓ Payload compressed from " + plainBytes + " to " + first.retainedBytes()
+                    + " bytes and inflates back to the same content");
+        } else {
+            System.out.println("✗ Payload compression did not reduce size or changed content");
+        }
+        if (first.text() == first.text()) {
+            System.out.println("✓ Compressed payload inflates once and reuses the text on later draws");
+        } else {
+            System.out.println("✗ Compressed payload is inflated again on every draw");
+        }
+        IntrinsicPayloads.clear();
+        if (IntrinsicPayloads.sharedCount() == 0 && IntrinsicPayloads.of(bitmap.toString()) != first) {
+            System.out.println("✓ Shared payload table cleared - later payloads are interned afresh");
+        } else {
+            System.out.println("✗ Shared payload table still holds " + IntrinsicPayloads.sharedCount() + " payloads");
+        }
+        IntrinsicPayloads.setSharing(false);
+
+        // Test 15: Off-heap icon pack loaded by memory-mapping one file
+        System.out.println("\nTest 15: Memory-mapped off-heap icon pack");
+        try {
+            Map<String, byte[]> bitmaps = new LinkedHashMap<>();
+            bitmaps.put("png", filledBitmap(256 * 1024, (byte) 1));
+            bitmaps.put("mp4", filledBitmap(512 * 1024, (byte) 2));
+            bitmaps.put("zip", filledBitmap(128 * 1024, (byte) 3));
+            Path packFile = Files.createTempFile("icons", ".pack");
+            packFile.toFile().deleteOnExit();
+            OffHeapIconPack.write(packFile, bitmaps);
+
+            long openStart = System.nanoTime();
+            OffHeapIconPack pack = OffHeapIconPack.open(packFile);
+            long openMicros = (System.nanoTime() - openStart) / 1000;
+            System.out.println("Opened pack with " + pack.payloadBytes() / 1024 + " KB of payloads in " + openMicros + " us");
+
+            OffHeapIcon mp4 = (OffHeapIcon) pack.getIcon("MP4");
+            mp4.draw(64, 128);
+            if (mp4.payload().isDirect() && Arrays.equals(mp4.copyPayload(), bitmaps.get("mp4"))) {
+                System.out.println("✓ Payload is read straight from the mapped file");
+            } else {
+                System.out.println("✗ Payload is not off-heap or does not match");
+            }
+
+            List<Icon> packIcons = new ArrayList<>(pack.icons());
+            FlyweightFootprint.Report packReport = FlyweightFootprint.analyze(packIcons, new FileSystemItem[0]);
+            packReport.print();
+            if (packReport.getFlyweightBytes() < 1024) {
+                System.out.println("✓ " + pack.payloadBytes() / 1024 + " KB of bitmaps cost "
+                        + packReport.getFlyweightBytes() + " bytes of heap");
+            } else {
+                System.out.println("✗ Off-heap icons retain " + packReport.getFlyweightBytes() + " heap bytes");
+            }
+
+            // Corrupt index: the mp4 entry's length now runs past the end of the file
+            byte[] packBytes = Files.readAllBytes(packFile);
+            int mp4LengthAt = 8 + (10 + 3) + 2 + 3 + 4;
+            ByteBuffer.wrap(packBytes).putInt(mp4LengthAt, Integer.MAX_VALUE - 16);
+            Path corruptFile = Files.createTempFile("corrupt", ".pack");
+            corruptFile.toFile().deleteOnExit();
+            Files.write(corruptFile, packBytes);
+            try {
+                OffHeapIconPack.open(corruptFile);
+                System.out.println("✗ Corrupt pack was opened");
+            } catch (IOException e) {
+                System.out.println("✓ Corrupt index rejected: " + e.getMessage());
+            }
+        } catch (IOException e) {
+            System.out.println("✗ Could not write or map the icon pack: " + e.getMessage());
+        }
+
+        // Test 16: Hits through a kept node still count as recent use for CLOCK
+        System.out.println("\nTest 16: Handle hits refresh the CLOCK bit and evictions clear the handle");
+        FlyweightCache<String, Icon> handleCache = new FlyweightCache<>(2);
+        FlyweightCache.Node<String, Icon> keptNode = handleCache.getNode("KEPT", FileIcon::new);
+        handleCache.get("OTHER", FileIcon::new);
+        keptNode.touch();   // what IconFactory.getIcon does on a handle hit - no map lookup
+        handleCache.get("NEWER", FileIcon::new);
+        if (handleCache.contains(keptNode) && handleCache.size() <= handleCache.getMaxSize()) {
+            System.out.println("✓ Entry used only through its node survived the sweep");
+        } else {
+            System.out.println("✗ Entry used through its node was evicted as cold");
+        }
+
+        IconType rarType = IconFactory.fileType("rar");
+        Icon rarIcon = IconFactory.getIcon(rarType);
+        long hitsBefore = IconFactory.getCacheHits();
+        IconFactory.getIcon(rarType);   // served from the handle
+        if (IconFactory.getCacheHits() == hitsBefore + 1) {
+            System.out.println("✓ Handle hits are counted in the cache stats");
+        } else {
+            System.out.println("✗ Handle hit was not counted");
+        }
+        rarType.evicted(rarIcon);   // as the icon cache's eviction callback would
+        if (rarType.cached == null) {
+            System.out.println("✓ Eviction cleared the handle - it no longer pins the old flyweight");
+        } else {
+            System.out.println("✗ Handle still holds an evicted flyweight");
+        }
+
+        // Test 17: Canonical names that change length, and a bounded type table
+        System.out.println("\nTest 17: Canonical type names and bounded interning");
+        IconTypeRegistry streets = new IconTypeRegistry(IconType.Kind.FOLDER, 3);
+        IconType strasse = streets.intern("straße");
+        if (streets.intern("STRASSE") == strasse && streets.intern("Straße") == strasse
+                && streets.find("strasse") == strasse) {
+            System.out.println("✓ 'straße' and 'STRASSE' resolve to one handle: " + strasse);
+        } else {
+            System.out.println("✗ Names with a length-changing upper case were interned twice");
+        }
+        IconType lane = streets.intern("lane");
+        IconType overflow = streets.intern("avenue");
+        if (lane.getName().equals("LANE") && overflow.getName().equals(IconTypeRegistry.OTHER)
+                && streets.size() == streets.getMaxTypes()) {
+            System.out.println("✓ Table stopped at " + streets.size() + " handles, new names share " + overflow);
+        } else {
+            System.out.println("✗ Type table grew past its bound: " + streets.size());
+        }
+
         System.out.println("\n=== Test Summary ===");
         System.out.println("Flyweight Pattern verified:");
         System.out.println("- Flyweight instances are shared and reused");
@@ -138,5 +429,40 @@ public class TestFlyWeightIcon {
         System.out.println("- Factory manages flyweight creation and caching");
         System.out.println("- Performance benefits demonstrated");
         System.out.println("- Large number of similar objects handled efficiently");
+        System.out.println("- Flyweight cache is thread-safe, bounded and builds each entry once");
+        System.out.println("- Interned type handles make repeated lookups allocation-free");
+        System.out.println("- Batch renderer draws each flyweight group with one call");
+        System.out.println("- Footprint analyzer projects heap use; payloads can be shared and compressed");
+        System.out.println("- Off-heap icon packs keep large payloads out of the Java heap");
+    }
+
+    // Bytes allocated so far by this thread, or -1 when the JVM does not expose the counter
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    // Flyweight that only counts how it was asked to draw
+    private static class CountingIcon implements Icon {
+        int batchCalls;
+        int itemsDrawn;
+
+        public void draw(int x, int y) {
+            itemsDrawn++;
+        }
+
+        public void drawBatch(int[] xs, int[] ys, int from, int to) {
+            batchCalls++;
+            itemsDrawn += to - from;
+        }
+    }
+
+    private static byte[] filledBitmap(int size, byte value) {
+        byte[] bitmap = new byte[size];
+        Arrays.fill(bitmap, value);
+        return bitmap;
     }
 }
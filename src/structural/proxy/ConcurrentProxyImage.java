@@ -0,0 +1,150 @@
+package structural.proxy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+// Thread-safe virtual proxy with single-flight loading.
+//
+// The load is represented by one CompletableFuture, published with a CAS. Whoever installs it
+// performs the load; every other caller - blocking or not - attaches to the same future, so a
+// burst of first callers costs exactly one disk read. A failed load is unpublished again so the
+// next caller retries instead of seeing the same failure forever.
+//
+// Built over an ImageCache, the proxy keeps no image of its own: every display() asks the cache,
+// and the future is only held while a prefetch is in flight, so the cache alone decides what stays
+// in memory.
+class ConcurrentProxyImage implements Image {
+    // Default background loader: small, bounded and daemon so prefetching never keeps the JVM alive
+    private static final ExecutorService DEFAULT_LOADER = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors() / 2), daemonThreads());
+
+    private final String filename;
+    private final Executor executor;
+    private final Function<String, ? extends RealImage> loader;
+    private final ImageCache cache;   // null when the proxy keeps its own image
+    private final AtomicReference<CompletableFuture<RealImage>> image = new AtomicReference<>();
+
+    public ConcurrentProxyImage(String filename) {
+        this(filename, DEFAULT_LOADER);
+    }
+
+    public ConcurrentProxyImage(String filename, Executor executor) {
+        this(filename, executor, RealImage::new);
+    }
+
+    public ConcurrentProxyImage(String filename, ImageCache cache) {
+        this(filename, DEFAULT_LOADER, cache);
+    }
+
+    public ConcurrentProxyImage(String filename, Executor executor, ImageCache cache) {
+        this(filename, executor, cache::get, cache);
+    }
+
+    // loader turns a filename into a loaded image; the proxy keeps what it returns
+    ConcurrentProxyImage(String filename, Executor executor, Function<String, ? extends RealImage> loader) {
+        this(filename, executor, loader, null);
+    }
+
+    private ConcurrentProxyImage(String filename, Executor executor, Function<String, ? extends RealImage> loader,
+                                 ImageCache cache) {
+        this.filename = filename;
+        this.executor = executor;
+        this.loader = loader;
+        this.cache = cache;
+    }
+
+    // Blocking display: loads on the calling thread if nobody else is loading yet
+    public void display() {
+        load().display();
+    }
+
+    // Non-blocking display: returns at once and displays on the loader thread once loaded
+    public CompletableFuture<Void> displayWhenReady() {
+        return prefetch().thenAccept(RealImage::display);
+    }
+
+    // Start loading in the background (if not already started) and return the shared future
+    public CompletableFuture<RealImage> prefetch() {
+        while (true) {
+            CompletableFuture<RealImage> current = image.get();
+            if (current != null) {
+                return current;
+            }
+            CompletableFuture<RealImage> created = new CompletableFuture<>();
+            if (image.compareAndSet(null, created)) {
+                try {
+                    executor.execute(() -> runLoad(created));
+                } catch (RuntimeException e) {   // executor rejected the task - fall back to an inline load
+                    runLoad(created);
+                }
+                return created;
+            }
+        }
+    }
+
+    // Loaded image, waiting for an in-flight load or performing it on this thread
+    public RealImage load() {
+        if (cache != null) {
+            return cache.get(filename);   // the cache is single-flight too, and joins a running prefetch
+        }
+        CompletableFuture<RealImage> current = image.get();
+        while (current == null) {
+            CompletableFuture<RealImage> created = new CompletableFuture<>();
+            if (image.compareAndSet(null, created)) {
+                runLoad(created);
+                current = created;
+            } else {
+                current = image.get();   // may be null again if that load just failed
+            }
+        }
+        try {
+            return current.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw e;
+        }
+    }
+
+    public boolean isLoaded() {
+        if (cache != null) {
+            return cache.isResident(filename);
+        }
+        CompletableFuture<RealImage> current = image.get();
+        return current != null && current.isDone() && !current.isCompletedExceptionally();
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    private void runLoad(CompletableFuture<RealImage> target) {
+        try {
+            target.complete(loader.apply(filename));
+            if (cache != null) {
+                image.compareAndSet(target, null);   // the cache owns the image from here on
+            }
+        } catch (Throwable t) {
+            image.compareAndSet(target, null);   // let the next caller retry
+            target.completeExceptionally(t);
+        }
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "image-loader-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,251 @@
+package structural.proxy;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// Process-wide cache of loaded images, keyed by filename and bounded by total bytes.
+//
+// Two tiers:
+//   strong - an access-ordered LinkedHashMap (LRU) holding images up to maxBytes in total
+//   soft   - images evicted from the strong tier stay reachable through SoftReferences, so they
+//            can be revived without a disk read until the GC actually needs the memory
+// Misses are single-flight: concurrent requests for the same file wait for one load. invalidate()
+// drops the in-flight entry too, so a load that started before it never lands in the cache.
+class ImageCache {
+    private static final ImageCache SHARED = new ImageCache(64L * 1024 * 1024);
+
+    private final long maxBytes;
+    private final Function<String, ? extends RealImage> loader;
+
+    private final LinkedHashMap<String, RealImage> strong = new LinkedHashMap<>(16, 0.75f, true);   // guarded by this
+    private long strongBytes;                                                                      // guarded by this
+    private final ConcurrentHashMap<String, SoftEntry> soft = new ConcurrentHashMap<>();
+    private final ReferenceQueue<RealImage> cleared = new ReferenceQueue<>();
+    private final ConcurrentHashMap<String, CompletableFuture<RealImage>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder softHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ImageCache(long maxBytes) {
+        this(maxBytes, RealImage::new);
+    }
+
+    public ImageCache(long maxBytes, Function<String, ? extends RealImage> loader) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Max bytes must be positive: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+        this.loader = loader;
+    }
+
+    // The cache shared by all CachedProxyImage handles that don't bring their own
+    public static ImageCache shared() {
+        return SHARED;
+    }
+
+    // Loaded image for the file - from memory if possible, otherwise loaded exactly once
+    public RealImage get(String filename) {
+        RealImage image = getIfPresent(filename);
+        if (image != null) {
+            return image;
+        }
+
+        CompletableFuture<RealImage> created = new CompletableFuture<>();
+        CompletableFuture<RealImage> existing = inFlight.putIfAbsent(filename, created);
+        if (existing != null) {
+            return join(existing);   // someone else is loading it
+        }
+        try {
+            image = getIfPresent(filename);   // it may have landed between our lookup and claiming the load
+            if (image == null) {
+                misses.increment();
+                image = loader.apply(filename);
+                synchronized (this) {
+                    if (inFlight.get(filename) == created) {   // not invalidated while we were loading
+                        put(filename, image);
+                    }
+                }
+            }
+            created.complete(image);
+            return image;
+        } catch (RuntimeException | Error e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(filename, created);
+        }
+    }
+
+    // Cached image or null - never loads
+    public RealImage getIfPresent(String filename) {
+        synchronized (this) {
+            RealImage image = strong.get(filename);
+            if (image != null) {
+                hits.increment();
+                return image;
+            }
+        }
+        SoftEntry entry = soft.get(filename);
+        RealImage image = entry == null ? null : entry.get();
+        if (image != null) {
+            softHits.increment();
+            synchronized (this) {
+                if (soft.remove(filename, entry)) {   // not invalidated in the meantime
+                    put(filename, image);   // promote back to the strong tier
+                }
+            }
+        }
+        return image;
+    }
+
+    public synchronized void invalidate(String filename) {
+        inFlight.remove(filename);
+        RealImage removed = strong.remove(filename);
+        if (removed != null) {
+            strongBytes -= removed.getSizeBytes();
+        }
+        soft.remove(filename);
+    }
+
+    public void clear() {
+        synchronized (this) {
+            strong.clear();
+            strongBytes = 0;
+        }
+        soft.clear();
+    }
+
+    public synchronized boolean isResident(String filename) {
+        return strong.containsKey(filename);
+    }
+
+    public synchronized long getWeightedSize() {
+        return strongBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getSoftHits() {
+        return softHits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public double getHitRatio() {
+        long hitCount = hits.sum() + softHits.sum();
+        long lookups = hitCount + misses.sum();
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+
+    public void showStats() {
+        System.out.println("Image cache: " + getWeightedSize() / 1024 + "/" + maxBytes / 1024 + " KB resident, "
+                + soft.size() + " soft, hits=" + getHits() + ", softHits=" + getSoftHits()
+                + ", misses=" + getMisses() + ", evictions=" + getEvictions()
+                + String.format(", hitRatio=%.2f", getHitRatio()));
+    }
+
+    private void put(String filename, RealImage image) {
+        purgeCleared();
+        long size = image.getSizeBytes();
+        if (size > maxBytes) {
+            soft.put(filename, new SoftEntry(filename, image, cleared));   // too big to pin, keep it soft
+            return;
+        }
+        synchronized (this) {
+            RealImage previous = strong.put(filename, image);
+            strongBytes += size - (previous == null ? 0 : previous.getSizeBytes());
+            // Demote least recently used images until we fit again
+            Iterator<Map.Entry<String, RealImage>> eldest = strong.entrySet().iterator();
+            while (strongBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<String, RealImage> entry = eldest.next();
+                if (entry.getKey().equals(filename)) {
+                    continue;
+                }
+                eldest.remove();
+                strongBytes -= entry.getValue().getSizeBytes();
+                evictions.increment();
+                soft.put(entry.getKey(), new SoftEntry(entry.getKey(), entry.getValue(), cleared));
+            }
+        }
+    }
+
+    // Drop map entries whose images the GC has already reclaimed
+    private void purgeCleared() {
+        SoftEntry entry;
+        while ((entry = (SoftEntry) cleared.poll()) != null) {
+            soft.remove(entry.filename, entry);
+        }
+    }
+
+    private static RealImage join(CompletableFuture<RealImage> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw e;
+        }
+    }
+
+    private static final class SoftEntry extends SoftReference<RealImage> {
+        final String filename;
+
+        SoftEntry(String filename, RealImage image, ReferenceQueue<RealImage> queue) {
+            super(image, queue);
+            this.filename = filename;
+        }
+    }
+}
+
+// Cheap image handle backed by an ImageCache.
+// Unlike ProxyImage it holds no reference to the loaded image, so the cache alone decides what
+// stays in memory; after an eviction the next display() simply re-materializes the image.
+class CachedProxyImage implements Image {
+    private final String filename;
+    private final ImageCache cache;
+
+    public CachedProxyImage(String filename) {
+        this(filename, ImageCache.shared());
+    }
+
+    public CachedProxyImage(String filename, ImageCache cache) {
+        this.filename = filename;
+        this.cache = cache;
+    }
+
+    public void display() {
+        cache.get(filename).display();
+    }
+
+    public boolean isResident() {
+        return cache.isResident(filename);
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+}
@@ -0,0 +1,138 @@
+package structural.proxy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Viewport-driven prefetching for an ordered gallery of proxies.
+//
+// moveTo(index) loads the current image plus the next 'ahead' and previous 'behind' images in the
+// background, nearest first. Loads still queued for images that left the window are cancelled, so
+// a jump across the gallery never leaves the workers busy with images nobody will look at.
+// Loads go through ConcurrentProxyImage.load(), so a prefetch and a display() of the same image
+// share one load.
+class ImagePrefetcher implements AutoCloseable {
+    private final List<ConcurrentProxyImage> images;
+    private final int ahead;
+    private final int behind;
+    private final ThreadPoolExecutor executor;
+    private final Map<Integer, Future<?>> scheduled = new HashMap<>();   // guarded by this
+    private int viewport = -1;                                            // guarded by this
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+
+    public ImagePrefetcher(List<ConcurrentProxyImage> images, int ahead, int behind, int threads) {
+        if (ahead < 0 || behind < 0 || threads <= 0) {
+            throw new IllegalArgumentException("Invalid prefetch window or thread count");
+        }
+        this.images = new ArrayList<>(images);
+        this.ahead = ahead;
+        this.behind = behind;
+        AtomicInteger count = new AtomicInteger();
+        // Queue holds at most one window's worth of work; anything beyond that is stale anyway
+        this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(ahead + behind + 1), runnable -> {
+                    Thread thread = new Thread(runnable, "image-prefetch-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    // Move the viewport and reschedule background loads around it
+    public synchronized void moveTo(int index) {
+        if (index < 0 || index >= images.size()) {
+            throw new IndexOutOfBoundsException("Viewport " + index + " outside gallery of " + images.size());
+        }
+        viewport = index;
+        int from = Math.max(0, index - behind);
+        int to = Math.min(images.size() - 1, index + ahead);
+
+        // Cancel queued loads that fell out of the window; a load already running is left to finish
+        boolean cancelledAny = false;
+        Iterator<Map.Entry<Integer, Future<?>>> it = scheduled.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, Future<?>> entry = it.next();
+            int i = entry.getKey();
+            Future<?> future = entry.getValue();
+            if (future.isDone()) {
+                it.remove();
+            } else if (i < from || i > to) {
+                if (future.cancel(false)) {
+                    cancelled.increment();
+                    cancelledAny = true;
+                }
+                it.remove();
+            }
+        }
+        if (cancelledAny) {
+            executor.purge();   // drop the cancelled tasks from the queue right away
+        }
+
+        // Current image first, then alternate forward/backward by distance
+        schedule(index);
+        for (int distance = 1; distance <= Math.max(ahead, behind); distance++) {
+            if (distance <= ahead && index + distance <= to) {
+                schedule(index + distance);
+            }
+            if (distance <= behind && index - distance >= from) {
+                schedule(index - distance);
+            }
+        }
+    }
+
+    // Move the viewport and display the image there, blocking only if it is not loaded yet
+    public void display(int index) {
+        moveTo(index);
+        images.get(index).display();
+    }
+
+    public synchronized int getViewport() {
+        return viewport;
+    }
+
+    public synchronized int getPending() {
+        int pending = 0;
+        for (Future<?> future : scheduled.values()) {
+            if (!future.isDone()) {
+                pending++;
+            }
+        }
+        return pending;
+    }
+
+    public long getSubmitted() {
+        return submitted.sum();
+    }
+
+    public long getCancelled() {
+        return cancelled.sum();
+    }
+
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void schedule(int index) {
+        ConcurrentProxyImage image = images.get(index);
+        if (image.isLoaded() || scheduled.containsKey(index)) {
+            return;
+        }
+        try {
+            scheduled.put(index, executor.submit(image::load));
+            submitted.increment();
+        } catch (RejectedExecutionException e) {
+            // queue full or shut down - the image will load on display() instead
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package structural.proxy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Loads image bytes without copying them onto the Java heap.
+//
+// map() memory-maps the file read-only: the bytes stay in the OS page cache and are paged in on
+// first access, so there is no read-into-array-then-copy step and no heap churn for large images.
+// transferTo() streams a file to an output channel with FileChannel.transferTo, which lets the OS
+// move the bytes directly (e.g. sendfile) when the target is a file or socket channel.
+class MappedImageLoader {
+
+    // Read-only view of the whole file; the mapping stays valid after the channel is closed
+    public static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Image larger than 2 GB: " + file);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size).asReadOnlyBuffer();
+        }
+    }
+
+    // Copy the whole file to out without staging it in a heap buffer; returns the bytes sent
+    public static long transferTo(Path file, WritableByteChannel out) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                long sent = channel.transferTo(position, size - position, out);
+                if (sent <= 0) {
+                    break;   // target cannot take more bytes
+                }
+                position += sent;
+            }
+            return position;
+        }
+    }
+
+    // Loader for ImageCache / ConcurrentProxyImage: filenames are paths to real files
+    public static RealImage load(String filename) {
+        return new RealImage(Path.of(filename));
+    }
+}
@@ -1,5 +1,11 @@
 package structural.proxy;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+
 // Subject
 interface Image {
     void display();
@@ -7,32 +13,89 @@ interface Image {
 
 // RealSubject
 class RealImage implements Image {
+    static final long DEFAULT_SIZE_BYTES = 256 * 1024;
+
     private String filename;
+    private long sizeBytes;
+    private Path source;        // null for images not backed by a file on disk
+    private ByteBuffer data;    // read-only mapping of source
 
     public RealImage(String filename) {
+        this(filename, DEFAULT_SIZE_BYTES);
+    }
+
+    // sizeBytes is the decoded size the image occupies in memory - used to weigh it in caches
+    public RealImage(String filename, long sizeBytes) {
         this.filename = filename;
+        this.sizeBytes = sizeBytes;
+        loadImageFromDisk();
+    }
+
+    // Image backed by a real file - its bytes are memory-mapped, not copied onto the heap
+    public RealImage(Path file) {
+        this.filename = file.toString();
+        this.source = file;
         loadImageFromDisk();
     }
 
     private void loadImageFromDisk() {
         System.out.println("Loading image: " + filename);
+        if (source != null) {
+            try {
+                data = MappedImageLoader.map(source);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot load image " + filename, e);
+            }
+            sizeBytes = data.capacity();
+        }
     }
 
     public void display() {
         System.out.println("Displaying image: " + filename);
     }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    // Read-only view of the image bytes, or null if the image is not file-backed
+    public ByteBuffer getData() {
+        return data == null ? null : data.duplicate();
+    }
+
+    // Stream the image bytes to out - straight from the file (zero-copy) when file-backed
+    public long writeTo(WritableByteChannel out) throws IOException {
+        if (source != null) {
+            return MappedImageLoader.transferTo(source, out);
+        }
+        return 0;
+    }
 }
 
 // Proxy
 class ProxyImage implements Image {
     private RealImage realImage;
     private String filename;
+    private ImageCache cache;   // when set, the image lives in the cache instead of in this proxy
 
     public ProxyImage(String filename) {
         this.filename = filename;
     }
 
+    public ProxyImage(String filename, ImageCache cache) {
+        this.filename = filename;
+        this.cache = cache;
+    }
+
     public void display() {
+        if (cache != null) {
+            cache.get(filename).display();
+            return;
+        }
         if (realImage == null) {
             realImage = new RealImage(filename);
         }
@@ -1,5 +1,20 @@
 package structural.proxy;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class TestImageProxy {
     public static void main(String[] args) {
         System.out.println("=== Testing Proxy Pattern ===\n");
@@ -107,6 +122,241 @@ public class TestImageProxy {
         manyProxies[2].display();
         System.out.println("✓ Only 2 real images loaded, 3 remain as lightweight proxies");
 
+        // Test 9: Single-flight loading under concurrent first access
+        System.out.println("\nTest 9: Concurrent first display shares one load");
+        AtomicInteger loads = new AtomicInteger();
+        ConcurrentProxyImage shared = new ConcurrentProxyImage("shared_photo.jpg", Runnable::run, filename -> {
+            loads.incrementAndGet();
+            pause(50);
+            return new RealImage(filename);
+        });
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(() -> {
+                awaitQuietly(start);
+                shared.load();
+            });
+            workers[i].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            joinQuietly(worker);
+        }
+        if (loads.get() == 1 && shared.isLoaded()) {
+            System.out.println("✓ " + threads + " concurrent callers triggered exactly one load");
+        } else {
+            System.out.println("✗ Expected one load, got " + loads.get());
+        }
+
+        // Test 10: Prefetch and non-blocking display
+        System.out.println("\nTest 10: Prefetch and displayWhenReady");
+        ExecutorService background = Executors.newSingleThreadExecutor();
+        AtomicInteger slowLoads = new AtomicInteger();
+        ConcurrentProxyImage slow = new ConcurrentProxyImage("slow_photo.jpg", background, filename -> {
+            slowLoads.incrementAndGet();
+            pause(200);
+            return new RealImage(filename);
+        });
+        startTime = System.nanoTime();
+        CompletableFuture<Void> shown = slow.displayWhenReady();
+        long callMillis = (System.nanoTime() - startTime) / 1_000_000;
+        if (callMillis < 100 && !shown.isDone()) {
+            System.out.println("✓ displayWhenReady() returned in " + callMillis + " ms without waiting for the load");
+        } else {
+            System.out.println("✗ displayWhenReady() blocked for " + callMillis + " ms");
+        }
+        slow.prefetch();
+        shown.join();
+        slow.display();
+        if (slowLoads.get() == 1) {
+            System.out.println("✓ Prefetch, async and blocking display all shared one load");
+        } else {
+            System.out.println("✗ Image loaded " + slowLoads.get() + " times");
+        }
+        background.shutdown();
+
+        // Test 11: A failed load is retried by the next caller
+        System.out.println("\nTest 11: Failed load is not cached");
+        AtomicInteger attempts = new AtomicInteger();
+        ConcurrentProxyImage flaky = new ConcurrentProxyImage("flaky_photo.jpg", Runnable::run, filename -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("disk not ready");
+            }
+            return new RealImage(filename);
+        });
+        try {
+            flaky.display();
+            System.out.println("✗ First load should have failed");
+        } catch (IllegalStateException e) {
+            System.out.println("First load failed: " + e.getMessage());
+        }
+        flaky.display();
+        if (attempts.get() == 2 && flaky.isLoaded()) {
+            System.out.println("✓ Second call retried and succeeded");
+        } else {
+            System.out.println("✗ Failure was cached");
+        }
+
+        // Test 12: Shared image cache - one load per file across proxies, byte-bounded LRU
+        System.out.println("\nTest 12: Shared byte-bounded image cache");
+        AtomicInteger diskReads = new AtomicInteger();
+        ImageCache cache = new ImageCache(3 * RealImage.DEFAULT_SIZE_BYTES, filename -> {
+            diskReads.incrementAndGet();
+            return new RealImage(filename);
+        });
+        Image first = new CachedProxyImage("gallery_1.jpg", cache);
+        Image sameFile = new CachedProxyImage("gallery_1.jpg", cache);
+        first.display();
+        sameFile.display();
+        if (diskReads.get() == 1) {
+            System.out.println("✓ Two proxies for the same file share one load");
+        } else {
+            System.out.println("✗ Same file loaded " + diskReads.get() + " times");
+        }
+        for (int i = 2; i <= 5; i++) {
+            new CachedProxyImage("gallery_" + i + ".jpg", cache).display();
+        }
+        if (cache.getWeightedSize() <= cache.getMaxBytes() && !cache.isResident("gallery_1.jpg")
+                && cache.isResident("gallery_5.jpg")) {
+            System.out.println("✓ Least recently used images evicted to stay within "
+                    + cache.getMaxBytes() / 1024 + " KB");
+        } else {
+            System.out.println("✗ Cache holds " + cache.getWeightedSize() + " bytes");
+        }
+
+        // Test 13: Evicted images come back from the soft tier or are re-loaded
+        System.out.println("\nTest 13: Re-materializing an evicted image");
+        int readsBefore = diskReads.get();
+        first.display();
+        long revived = cache.getSoftHits();
+        if (diskReads.get() - readsBefore + revived == 1 && cache.isResident("gallery_1.jpg")) {
+            System.out.println("✓ Evicted image is back (" + (revived == 1 ? "revived from soft reference" : "re-loaded")
+                    + ") and resident again");
+        } else {
+            System.out.println("✗ Evicted image was not re-materialized correctly");
+        }
+        cache.showStats();
+
+        // Test 14: Memory-mapped loading and zero-copy streaming of a real file
+        System.out.println("\nTest 14: Memory-mapped image loading");
+        try {
+            byte[] pixels = new byte[1024 * 1024];
+            for (int i = 0; i < pixels.length; i++) {
+                pixels[i] = (byte) (i * 31);
+            }
+            Path imageFile = Files.createTempFile("photo", ".raw");
+            Path copyFile = Files.createTempFile("photo_copy", ".raw");
+            imageFile.toFile().deleteOnExit();
+            copyFile.toFile().deleteOnExit();
+            Files.write(imageFile, pixels);
+
+            RealImage mapped = MappedImageLoader.load(imageFile.toString());
+            ByteBuffer data = mapped.getData();
+            byte[] readBack = new byte[data.remaining()];
+            data.get(readBack);
+            if (data.isDirect() && data.isReadOnly() && Arrays.equals(readBack, pixels)
+                    && mapped.getSizeBytes() == pixels.length) {
+                System.out.println("✓ " + pixels.length / 1024 + " KB mapped read-only outside the heap");
+            } else {
+                System.out.println("✗ Mapped image data is wrong");
+            }
+
+            long sent;
+            try (FileChannel out = FileChannel.open(copyFile, StandardOpenOption.WRITE)) {
+                sent = mapped.writeTo(out);
+            }
+            if (sent == pixels.length && Arrays.equals(Files.readAllBytes(copyFile), pixels)) {
+                System.out.println("✓ Streamed " + sent / 1024 + " KB with transferTo");
+            } else {
+                System.out.println("✗ Transferred " + sent + " bytes");
+            }
+        } catch (IOException e) {
+            System.out.println("✗ Could not map image: " + e.getMessage());
+        }
+
+        // Test 15: Viewport-driven prefetching
+        System.out.println("\nTest 15: Viewport-driven prefetching");
+        AtomicInteger galleryLoads = new AtomicInteger();
+        List<ConcurrentProxyImage> gallery = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            gallery.add(new ConcurrentProxyImage("scroll_" + i + ".jpg", Runnable::run, filename -> {
+                galleryLoads.incrementAndGet();
+                pause(60);
+                return new RealImage(filename);
+            }));
+        }
+        try (ImagePrefetcher prefetcher = new ImagePrefetcher(gallery, 3, 1, 1)) {
+            prefetcher.moveTo(0);
+            pause(400);
+            startTime = System.nanoTime();
+            for (int i = 1; i <= 3; i++) {
+                gallery.get(i).display();
+            }
+            long scrollMillis = (System.nanoTime() - startTime) / 1_000_000;
+            if (scrollMillis < 60) {
+                System.out.println("✓ Next 3 images displayed in " + scrollMillis + " ms - already prefetched");
+            } else {
+                System.out.println("✗ Sequential scrolling still waited " + scrollMillis + " ms");
+            }
+
+            prefetcher.moveTo(4);          // schedules 4..7 on the single worker
+            prefetcher.moveTo(15);         // jump: queued loads for 5..7 are stale
+            pause(600);
+            boolean staleSkipped = !gallery.get(6).isLoaded() && !gallery.get(7).isLoaded();
+            boolean windowLoaded = gallery.get(15).isLoaded() && gallery.get(18).isLoaded() && gallery.get(14).isLoaded();
+            if (prefetcher.getCancelled() > 0 && staleSkipped && windowLoaded) {
+                System.out.println("✓ Jump cancelled " + prefetcher.getCancelled()
+                        + " queued loads and prefetched around the new viewport");
+            } else {
+                System.out.println("✗ Cancelled=" + prefetcher.getCancelled() + ", stale skipped=" + staleSkipped
+                        + ", window loaded=" + windowLoaded);
+            }
+            System.out.println("Loads: " + galleryLoads.get() + " of " + gallery.size() + " images, "
+                    + prefetcher.getSubmitted() + " submitted");
+        }
+
+        // Test 16: Cache-backed proxies keep no image of their own
+        System.out.println("\nTest 16: Proxies over an image cache");
+        AtomicInteger cachedReads = new AtomicInteger();
+        ImageCache oneImageCache = new ImageCache(RealImage.DEFAULT_SIZE_BYTES, filename -> {
+            cachedReads.incrementAndGet();
+            return new RealImage(filename);
+        });
+        ConcurrentProxyImage viaCache = new ConcurrentProxyImage("cached_a.jpg", Runnable::run, oneImageCache);
+        Image classicViaCache = new ProxyImage("cached_b.jpg", oneImageCache);
+        viaCache.display();
+        classicViaCache.display();   // pushes cached_a.jpg out of the strong tier
+        boolean dropped = !viaCache.isLoaded();
+        oneImageCache.clear();       // forget the soft copy as well
+        viaCache.prefetch().join();
+        viaCache.display();
+        if (dropped && cachedReads.get() == 3 && viaCache.isLoaded()) {
+            System.out.println("✓ Evicted image was re-materialized through the cache, not held by the proxy");
+        } else {
+            System.out.println("✗ Dropped=" + dropped + ", reads=" + cachedReads.get());
+        }
+
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        ImageCache staleCache = new ImageCache(4 * RealImage.DEFAULT_SIZE_BYTES, filename -> {
+            loadStarted.countDown();
+            awaitQuietly(releaseLoad);
+            return new RealImage(filename);
+        });
+        Thread staleLoader = new Thread(() -> staleCache.get("stale.jpg"));
+        staleLoader.start();
+        awaitQuietly(loadStarted);
+        staleCache.invalidate("stale.jpg");   // the file changed while it was being read
+        releaseLoad.countDown();
+        joinQuietly(staleLoader);
+        if (!staleCache.isResident("stale.jpg")) {
+            System.out.println("✓ invalidate() during a load keeps the stale image out of the cache");
+        } else {
+            System.out.println("✗ Stale load was cached after invalidate()");
+        }
+
         System.out.println("\n=== Test Summary ===");
         System.out.println("Proxy Pattern verified:");
         System.out.println("- Proxy provides lazy loading of expensive objects");
@@ -115,5 +365,33 @@ public class TestImageProxy {
         System.out.println("- Proxy and real object share same interface");
         System.out.println("- Significant performance improvement for object creation");
         System.out.println("- Memory efficiency through on-demand loading");
+        System.out.println("- Concurrent proxy shares one in-flight load and can prefetch in the background");
+        System.out.println("- Cached proxies are cheap handles over a shared, byte-bounded image cache");
+        System.out.println("- File-backed images are memory-mapped and streamed without heap copies");
+        System.out.println("- Prefetcher loads around the viewport and cancels stale loads on jumps");
+    }
+
+    private static void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void joinQuietly(Thread thread) {
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
-}
\ No newline at end of file
+}